@@ -1,10 +1,14 @@
 package hr.fer.zemris.java.cstr;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
 /**
  * The <tt>CString</tt> class represents character strings. CString values
- * cannot be changed after they are created. String buffers support mutable
- * strings. Because CString objects are immutable they can be shared. For
- * example:
+ * cannot be changed after they are created. A {@linkplain CStringBuilder}
+ * supports mutable strings. Because CString objects are immutable they can be
+ * shared. For example:
  * <blockquote><pre>
  *     CString str = CString.fromString("abc");
  * </pre></blockquote><p>
@@ -27,6 +31,7 @@ package hr.fer.zemris.java.cstr;
  * <li>getting the index of a character starting from the first index,
  * <li>getting the index of a character starting from the specified index,
  * <li>getting the index of a substring starting from the specified index,
+ * <li>getting the last index of a character or a substring,
  * <li>checking if the CString starts with a specified character sequence,
  * <li>checking if the CString ends with a specified character sequence,
  * <li>checking if the CString contains a specified character sequence and
@@ -53,20 +58,28 @@ package hr.fer.zemris.java.cstr;
  *     CString a = abc.replaceAll(
  *             CString.fromString("bc"), CString.fromString(""));
  * </pre></blockquote><p>
+ * Splitting a CString with {@link #split(char)} or {@link #tokens(char)}
+ * produces CStrings that share the character array of the original CString,
+ * so no characters are copied. Joining CStrings with
+ * {@link #join(CString, CString...)} copies each character exactly once into
+ * an array of precomputed size.
  *
  * @author Mario Bobic
  */
 public class CString {
 
-    /** The value is used for character storage. */
-    private final char data[];
+    /**
+     * The value is used for character storage. Classes of this package may
+     * read it directly, but must never alter it.
+     */
+    final char data[];
     /**
      * Offset of the character array that make up this CString instance. At the
      * same time this is the begin index of this CString instance.
      */
-    private final int offset;
+    final int offset;
     /** Number of characters that make up this CString instance. */
-    private final int length;
+    final int length;
     /**
      * End index of the character array that make up this CString instance. This
      * is a cached value for <tt>offset+length-1</tt>. May be negative if there
@@ -106,7 +119,7 @@ public class CString {
         this.data = copyOfArray(data, offset, length);
         this.offset = 0;
         this.length = length;
-        this.endIndex = offset+length-1;
+        this.endIndex = length-1;
     }
 
     /**
@@ -158,12 +171,15 @@ public class CString {
      * data array to this instance. By using this constructor it is guaranteed
      * that no one will be able to change contents of the <tt>data</tt> array
      * after the CString has been initialized.
+     * <p>
+     * This constructor is accessible to the classes of this package that need
+     * to hand over a freshly filled character array without copying it.
      *
      * @param offset offset of the character array that make up this instance
      * @param length number of characters that make up this instance
      * @param data character array that is guaranteed not to be changed
      */
-    private CString(int offset, int length, char[] data) {
+    CString(int offset, int length, char[] data) {
         this.data = data;
         this.offset = offset;
         this.length = length;
@@ -243,6 +259,9 @@ public class CString {
      * character sequence represented by this <tt>CString</tt> object, then the
      * index of the first such occurrence is returned. If no such character
      * occurs in this CString, then <tt>-1</tt> is returned.
+     * <p>
+     * The returned index is relative to the beginning of this CString, also
+     * when this CString is a {@link #substring} of another one.
      *
      * @param c character whose index is to be returned
      * @return the index of the first occurrence of the character in the
@@ -252,7 +271,7 @@ public class CString {
     public int indexOf(char c) {
         for (int i = offset; i <= endIndex; i++) {
             if (data[i] == c) {
-                return i;
+                return i-offset;
             }
         }
 
@@ -323,15 +342,112 @@ public class CString {
             return fromIndex;
         }
 
-        int j = s.offset;
-        for (int i = fromIndex+offset; i <= endIndex; i++) {
-            if (s.data[j] == data[i]) {
+        return find(s, fromIndex);
+    }
+
+    /**
+     * Returns the index within this CString of the last occurrence of the
+     * specified character, or <tt>-1</tt> if the character does not occur. The
+     * CString is searched backwards starting at its last character, so a
+     * character near the end, such as the dot of a file extension, is found
+     * without scanning the whole CString.
+     *
+     * @param c character whose index is to be returned
+     * @return the index of the last occurrence of the character in the
+     *         character sequence represented by this object, or <tt>-1</tt> if
+     *         the character does not occur.
+     */
+    public int lastIndexOf(char c) {
+        for (int i = endIndex; i >= offset; i--) {
+            if (data[i] == c) {
+                return i-offset;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index within this CString of the last occurrence of the
+     * specified substring, searching backwards from the end. If no such
+     * substring occurs in this CString, then <tt>-1</tt> is returned.
+     * <p>
+     * If the CString parameter <tt>s</tt> is <tt>null</tt>, an
+     * {@linkplain IllegalArgumentException} is thrown.
+     *
+     * @param s substring whose index is to be returned
+     * @return the index of the last occurrence of the substring in the
+     *         character sequence represented by this object, or <tt>-1</tt> if
+     *         the substring does not occur.
+     * @throws IllegalArgumentException if <tt>s</tt> is <tt>null</tt>
+     * @see #lastIndexOf(CString, int)
+     */
+    public int lastIndexOf(CString s) {
+        return lastIndexOf(s, length);
+    }
+
+    /**
+     * Returns the index within this CString of the last occurrence of the
+     * specified substring that starts at or before the specified index,
+     * searching backwards. If no such substring occurs in this CString, then
+     * <tt>-1</tt> is returned.
+     * <p>
+     * If the CString parameter <tt>s</tt> is <tt>null</tt>, an
+     * {@linkplain IllegalArgumentException} is thrown. Unlike the
+     * {@linkplain #indexOf(CString, int)} method, this method does not throw
+     * on an out of range index: a negative <tt>fromIndex</tt> returns
+     * <tt>-1</tt> and a <tt>fromIndex</tt> greater than the length of this
+     * CString searches the whole CString. If the given CString is empty, the
+     * smaller of <tt>fromIndex</tt> and {@link #length()} is returned.
+     * <p>
+     * If the search window includes the end of this CString, the substring is
+     * first tested with {@link #endsWith(CString)}. Otherwise, or if that test
+     * fails, the substring is searched for with the Knuth-Morris-Pratt
+     * algorithm run over the reversed characters of both CStrings, so the
+     * worst-case complexity of this method is linear. No characters are
+     * copied.
+     *
+     * @param s substring whose index is to be returned
+     * @param fromIndex the index from which to start the backward search
+     * @return the index of the last occurrence of the substring in the
+     *         character sequence represented by this object, or <tt>-1</tt> if
+     *         the substring does not occur.
+     * @throws IllegalArgumentException if <tt>s</tt> is <tt>null</tt>
+     */
+    public int lastIndexOf(CString s, int fromIndex) {
+        checkArgument(s);
+        int last = Math.min(fromIndex, length - s.length);
+        if (last < 0) {
+            return -1;
+        }
+        if (s.isEmpty()) {
+            return last;
+        }
+        if (last == length - s.length && endsWith(s)) {
+            return last;
+        }
+        if (s.length == 1) {
+            char c = s.data[s.offset];
+            for (int i = last; i >= 0; i--) {
+                if (data[i+offset] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int[] border = reverseBorders(s);
+        int j = 0;
+        for (int i = last + s.length - 1; i >= 0; i--) {
+            char c = data[i+offset];
+            while (j > 0 && s.data[s.endIndex-j] != c) {
+                j = border[j-1];
+            }
+            if (s.data[s.endIndex-j] == c) {
                 j++;
                 if (j == s.length) {
-                    return i-s.length+1;
+                    return i;
                 }
-            } else {
-                j = s.offset;
             }
         }
 
@@ -527,6 +643,12 @@ public class CString {
      * represents a character sequence identical to the character sequence
      * represented by this <tt>CString</tt> object, except that every occurrence
      * of <tt>oldChar</tt> is replaced by an occurrence of <tt>newChar</tt>.
+     * If <tt>oldChar</tt> does not occur in this CString, a reference to this
+     * <tt>CString</tt> object is returned as well.
+     * <p>
+     * Characters before the first occurrence of <tt>oldChar</tt> are only
+     * block copied. The remaining characters are replaced in a loop without
+     * branches, which the just-in-time compiler is able to vectorize.
      *
      * @param oldChar the old character
      * @param newChar the new character
@@ -537,13 +659,16 @@ public class CString {
         if (oldChar == newChar) {
             return this;
         }
+        int first = indexOf(oldChar);
+        if (first == -1) {
+            return this;
+        }
 
         char[] newInstance = this.toCharArray();
 
-        for (int i = 0; i < newInstance.length; i++) {
-            if (newInstance[i] == oldChar) {
-                newInstance[i] = newChar;
-            }
+        for (int i = first; i < newInstance.length; i++) {
+            char c = newInstance[i];
+            newInstance[i] = (c == oldChar) ? newChar : c;
         }
 
         return new CString(0, newInstance.length, newInstance);
@@ -608,6 +733,272 @@ public class CString {
         return newInstance;
     }
 
+    /**
+     * Returns a CString resulting from replacing occurrences of every key of
+     * the given map in this CString with the value mapped to that key. All keys
+     * are searched for in a single pass over this CString using a
+     * {@linkplain CStringMatcher}.
+     * <p>
+     * Occurrences are replaced from left to right. If several keys begin at
+     * the same index, the longest one is replaced, and occurrences that overlap
+     * an already replaced one are ignored. The replaced text is not searched
+     * again. If nothing is replaced, a reference to this <tt>CString</tt>
+     * object is returned.
+     * <p>
+     * When the same replacements are applied to many CStrings, it is more
+     * efficient to build a {@linkplain CStringMatcher} once and call its
+     * {@link CStringMatcher#replaceAll(CString, CString[]) replaceAll} method.
+     * <p>
+     * This method throws an {@linkplain IllegalArgumentException} if the map,
+     * any of its keys or any of its values is <tt>null</tt>, or if any of the
+     * keys is empty.
+     *
+     * @param replacements map of CStrings to be replaced to their replacements
+     * @return a string derived from this string by replacing the occurrences
+     *         of the keys with their values
+     * @throws IllegalArgumentException if the map, any key or any value is
+     *         <tt>null</tt> or if any key is empty
+     */
+    public CString replaceAll(Map<CString, CString> replacements) {
+        checkArgument(replacements);
+        if (replacements.isEmpty()) {
+            return this;
+        }
+
+        CString[] keys = new CString[replacements.size()];
+        CString[] values = new CString[keys.length];
+        int i = 0;
+        for (Map.Entry<CString, CString> entry : replacements.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+
+        return new CStringMatcher(keys).replaceAll(this, values);
+    }
+
+    /**
+     * Splits this CString around occurrences of the given delimiter character
+     * and returns the array of resulting CStrings. Every returned CString is a
+     * {@link #substring} that shares the character array of this CString, so
+     * no characters are copied.
+     * <p>
+     * Unlike {@linkplain String#split(String)}, this method keeps all empty
+     * CStrings, including the trailing ones. The returned array therefore has
+     * exactly one element more than there are delimiters in this CString, and
+     * {@link #join(CString, CString...) joining} it with the same delimiter
+     * gives back a CString equal to this one.
+     * <p>
+     * Examples:
+     * <blockquote><pre>
+     * CString.fromString("a,b,,c").split(',') returns ["a", "b", "", "c"]
+     * CString.fromString("abc").split(',') returns ["abc"]
+     * </pre></blockquote>
+     *
+     * @param delimiter the delimiting character
+     * @return the array of CStrings computed by splitting this CString
+     */
+    public CString[] split(char delimiter) {
+        int count = 1;
+        for (int i = offset; i <= endIndex; i++) {
+            if (data[i] == delimiter) {
+                count++;
+            }
+        }
+
+        CString[] parts = new CString[count];
+        int n = 0;
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (data[i+offset] == delimiter) {
+                parts[n++] = substring(start, i);
+                start = i+1;
+            }
+        }
+        parts[n] = substring(start, length);
+
+        return parts;
+    }
+
+    /**
+     * Splits this CString around non-overlapping occurrences of the given
+     * delimiter CString, searched from left to right, and returns the array of
+     * resulting CStrings. Every returned CString is a {@link #substring} that
+     * shares the character array of this CString, so no characters are copied.
+     * <p>
+     * Just like {@link #split(char)}, this method keeps all empty CStrings.
+     * <p>
+     * This method throws an {@linkplain IllegalArgumentException} if the
+     * given <tt>delimiter</tt> is <tt>null</tt> or empty.
+     *
+     * @param delimiter the delimiting CString
+     * @return the array of CStrings computed by splitting this CString
+     * @throws IllegalArgumentException if <tt>delimiter</tt> is <tt>null</tt>
+     *         or empty
+     */
+    public CString[] split(CString delimiter) {
+        checkDelimiter(delimiter);
+
+        int count = 1;
+        for (int i = find(delimiter, 0); i != -1; i = find(delimiter, i+delimiter.length)) {
+            count++;
+        }
+
+        CString[] parts = new CString[count];
+        int n = 0;
+        int start = 0;
+        for (int i = find(delimiter, 0); i != -1; i = find(delimiter, start)) {
+            parts[n++] = substring(start, i);
+            start = i+delimiter.length;
+        }
+        parts[n] = substring(start, length);
+
+        return parts;
+    }
+
+    /**
+     * Returns an iterator over the tokens of this CString delimited by the
+     * given delimiter character. Tokens are found lazily, one per call of the
+     * {@linkplain Iterator#next()} method, and each token is a
+     * {@link #substring} that shares the character array of this CString.
+     * <p>
+     * Unlike {@link #split(char)}, this method skips empty tokens, so
+     * consecutive delimiters are treated as one. This makes it suitable for
+     * reading whitespace separated input, such as <tt>"CIRCLE  10 10  5"</tt>.
+     *
+     * @param delimiter the delimiting character
+     * @return an iterator over the non-empty tokens of this CString
+     */
+    public Iterator<CString> tokens(char delimiter) {
+        return new TokenIterator(new CString(0, 1, new char[] {delimiter}));
+    }
+
+    /**
+     * Returns an iterator over the tokens of this CString delimited by the
+     * given delimiter CString. Tokens are found lazily, one per call of the
+     * {@linkplain Iterator#next()} method, and each token is a
+     * {@link #substring} that shares the character array of this CString.
+     * <p>
+     * Unlike {@link #split(CString)}, this method skips empty tokens.
+     * <p>
+     * This method throws an {@linkplain IllegalArgumentException} if the
+     * given <tt>delimiter</tt> is <tt>null</tt> or empty.
+     *
+     * @param delimiter the delimiting CString
+     * @return an iterator over the non-empty tokens of this CString
+     * @throws IllegalArgumentException if <tt>delimiter</tt> is <tt>null</tt>
+     *         or empty
+     */
+    public Iterator<CString> tokens(CString delimiter) {
+        checkDelimiter(delimiter);
+        return new TokenIterator(delimiter);
+    }
+
+    /**
+     * Returns a new CString composed of the given <tt>elements</tt> joined
+     * together with a copy of the specified <tt>delimiter</tt>. The length of
+     * the resulting CString is computed before any copying takes place, so its
+     * character array is allocated exactly once and with no excess room.
+     * <p>
+     * If there are no elements, an empty CString is returned. If there is
+     * only one element, that element is returned.
+     * <p>
+     * This method throws an {@linkplain IllegalArgumentException} if the
+     * delimiter, the array of elements or any of the elements is <tt>null</tt>.
+     *
+     * @param delimiter the delimiter that separates each element
+     * @param elements the elements to join together
+     * @return a new CString composed of the elements separated by the delimiter
+     * @throws IllegalArgumentException if any of the arguments is <tt>null</tt>
+     */
+    public static CString join(CString delimiter, CString... elements) {
+        checkArgument(delimiter); checkArgument(elements);
+        if (elements.length == 0) {
+            return new CString(0, 0, new char[0]);
+        }
+
+        int newLength = delimiter.length * (elements.length-1);
+        for (CString element : elements) {
+            newLength += checkArgument(element).length;
+        }
+        if (elements.length == 1) {
+            return elements[0];
+        }
+
+        char[] joined = new char[newLength];
+        int position = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (i != 0) {
+                System.arraycopy(delimiter.data, delimiter.offset, joined, position, delimiter.length);
+                position += delimiter.length;
+            }
+            CString element = elements[i];
+            System.arraycopy(element.data, element.offset, joined, position, element.length);
+            position += element.length;
+        }
+
+        return new CString(0, joined.length, joined);
+    }
+
+    /**
+     * An iterator over the non-empty tokens of the enclosing CString. The next
+     * token is searched for only when {@linkplain #hasNext()} or
+     * {@linkplain #next()} is called.
+     */
+    private class TokenIterator implements Iterator<CString> {
+
+        /** The delimiting CString. */
+        private final CString delimiter;
+        /** Start index of the next token, or -1 if it is not yet found. */
+        private int tokenStart = -1;
+        /** End index of the next token, exclusive. */
+        private int tokenEnd;
+        /** Index from which the search for the next token continues. */
+        private int position;
+
+        /**
+         * Constructs a new TokenIterator with the specified delimiter.
+         *
+         * @param delimiter the delimiting CString
+         */
+        public TokenIterator(CString delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (tokenStart != -1) {
+                return true;
+            }
+
+            while (position < length) {
+                int index = find(delimiter, position);
+                int end = (index == -1) ? length : index;
+                int start = position;
+                position = (index == -1) ? length : index + delimiter.length;
+
+                if (end > start) {
+                    tokenStart = start;
+                    tokenEnd = end;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public CString next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CString token = substring(tokenStart, tokenEnd);
+            tokenStart = -1;
+            return token;
+        }
+
+    }
+
     /**
      * Returns a new array with the character sequence of <tt>source</tt>
      * starting from the <tt>fromIndex</tt> (inclusive) and ending on
@@ -670,6 +1061,77 @@ public class CString {
         return arg;
     }
 
+    /**
+     * Returns the index within this CString of the first occurrence of the
+     * specified non-empty CString <tt>s</tt>, starting at the specified index,
+     * or <tt>-1</tt> if there is no such occurrence. The returned index is
+     * relative to the beginning of this CString. Unlike the public
+     * {@linkplain #indexOf(CString, int)} method, this method does not check
+     * its arguments.
+     *
+     * @param s the non-empty CString to search for
+     * @param fromIndex the index from which to start the search
+     * @return the index of the first occurrence of <tt>s</tt> or <tt>-1</tt>
+     */
+    private int find(CString s, int fromIndex) {
+        char first = s.data[s.offset];
+        int last = length - s.length;
+
+        for (int i = fromIndex; i <= last; i++) {
+            if (data[i+offset] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < s.length && data[i+offset+j] == s.data[s.offset+j]) {
+                j++;
+            }
+            if (j == s.length) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the Knuth-Morris-Pratt failure table of the reversed characters
+     * of the specified non-empty CString. The element at index <tt>k</tt> is
+     * the length of the longest proper border of the last <tt>k+1</tt>
+     * characters of <tt>s</tt>, read from the end.
+     *
+     * @param s the non-empty CString
+     * @return the failure table of the reversed CString
+     */
+    private static int[] reverseBorders(CString s) {
+        int[] border = new int[s.length];
+        int k = 0;
+        for (int i = 1; i < s.length; i++) {
+            char c = s.data[s.endIndex-i];
+            while (k > 0 && s.data[s.endIndex-k] != c) {
+                k = border[k-1];
+            }
+            if (s.data[s.endIndex-k] == c) {
+                k++;
+            }
+            border[i] = k;
+        }
+        return border;
+    }
+
+    /**
+     * Checks if the given delimiter is <tt>null</tt> or empty and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     *
+     * @param delimiter the delimiter to be checked
+     * @throws IllegalArgumentException if the delimiter is <tt>null</tt> or empty
+     */
+    private static void checkDelimiter(CString delimiter) {
+        checkArgument(delimiter);
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty.");
+        }
+    }
+
     /**
      * Copies the specified array of characters, truncating or padding with
      * zeros (if necessary) so the copy has the specified length. For all
@@ -0,0 +1,173 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.Random;
+
+/**
+ * A demonstration class that measures the performance of the
+ * {@linkplain CString#indexOf(char)} and
+ * {@linkplain CString#replaceAll(char, char)} methods against the loops they
+ * used to be implemented with, and prints out the results.
+ * <p>
+ * The former loops are reproduced by this class. The former
+ * <tt>replaceAll</tt> copied all characters and then replaced them in a loop
+ * with a branch for each character, while the current one returns the
+ * CString itself if the old character does not occur, block copies the
+ * characters before its first occurrence and replaces the rest in a loop
+ * without branches. The former <tt>indexOf</tt> ran the same loop as the
+ * current one, which only corrects the returned index, so its times are
+ * expected to match.
+ * <p>
+ * Each method is timed on a CString of one million characters in which the
+ * searched character is missing, occurs only at the end, or makes up a
+ * quarter of the characters. The measured times are only indicative, as no
+ * care is taken of the just-in-time compiler other than running each
+ * measurement several times before it is timed.
+ *
+ * @author Mario Bobic
+ */
+public class CStringBenchmark {
+
+    /** Number of characters of the benchmarked CString. */
+    private static final int LENGTH = 1_000_000;
+    /** Number of calls timed for each case. */
+    private static final int CALLS = 200;
+    /** Number of untimed rounds before each timed round. */
+    private static final int WARMUP = 3;
+
+    /** Sink for results, so that the calls are not optimized away. */
+    private static int sink;
+
+    /**
+     * Program entry point.
+     *
+     * @param args not used in this benchmark
+     */
+    public static void main(String[] args) {
+        System.out.println("Microseconds per call on " + LENGTH + " characters");
+        System.out.printf("%-22s %12s %12s%n", "case", "former", "current");
+
+        String[] names = {"missing", "at the end", "every fourth"};
+        for (int i = 0; i < names.length; i++) {
+            char[] chars = createChars(i);
+            CString cstring = new CString(chars);
+
+            double formerIndex = timeIndexOf(chars, cstring, true);
+            double currentIndex = timeIndexOf(chars, cstring, false);
+            System.out.printf("%-22s %12.1f %12.1f%n", "indexOf, " + names[i],
+                formerIndex, currentIndex);
+
+            double formerReplace = timeReplaceAll(chars, cstring, true);
+            double currentReplace = timeReplaceAll(chars, cstring, false);
+            System.out.printf("%-22s %12.1f %12.1f%n", "replaceAll, " + names[i],
+                formerReplace, currentReplace);
+        }
+
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Creates the characters of the specified case: random lowercase letters
+     * other than <tt>'x'</tt>, with no <tt>'x'</tt> at all, a single
+     * <tt>'x'</tt> at the end, or <tt>'x'</tt> at every fourth position.
+     *
+     * @param benchmarkCase index of the case
+     * @return the characters of the case
+     */
+    private static char[] createChars(int benchmarkCase) {
+        Random random = new Random(42);
+        char[] chars = new char[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            chars[i] = (char) ('a' + random.nextInt(23));
+        }
+        if (benchmarkCase == 1) {
+            chars[LENGTH - 1] = 'x';
+        } else if (benchmarkCase == 2) {
+            for (int i = 0; i < LENGTH; i += 4) {
+                chars[i] = 'x';
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Returns the average time in microseconds of an <tt>indexOf</tt> call
+     * for the character <tt>'x'</tt>.
+     *
+     * @param chars the characters of the CString
+     * @param cstring the CString
+     * @param former true if the former loop is timed
+     * @return average time of a call in microseconds
+     */
+    private static double timeIndexOf(char[] chars, CString cstring, boolean former) {
+        long time = 0;
+        for (int round = 0; round <= WARMUP; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                sink += former ? formerIndexOf(chars, 'x') : cstring.indexOf('x');
+            }
+            time = System.nanoTime() - start;
+        }
+        return time / 1000.0 / CALLS;
+    }
+
+    /**
+     * Returns the average time in microseconds of a <tt>replaceAll</tt> call
+     * replacing the character <tt>'x'</tt> by <tt>'y'</tt>.
+     *
+     * @param chars the characters of the CString
+     * @param cstring the CString
+     * @param former true if the former loop is timed
+     * @return average time of a call in microseconds
+     */
+    private static double timeReplaceAll(char[] chars, CString cstring, boolean former) {
+        long time = 0;
+        for (int round = 0; round <= WARMUP; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                sink += former
+                    ? formerReplaceAll(chars, 'x', 'y').length
+                    : cstring.replaceAll('x', 'y').length();
+            }
+            time = System.nanoTime() - start;
+        }
+        return time / 1000.0 / CALLS;
+    }
+
+    /**
+     * The former loop of {@linkplain CString#indexOf(char)}.
+     *
+     * @param data the characters to be searched
+     * @param c the character to be found
+     * @return index of the first occurrence of the character, or <tt>-1</tt>
+     */
+    private static int formerIndexOf(char[] data, char c) {
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The former loop of {@linkplain CString#replaceAll(char, char)}, which
+     * always copies all characters.
+     *
+     * @param data the characters in which the character is replaced
+     * @param oldChar the old character
+     * @param newChar the new character
+     * @return a copy of the characters with the character replaced
+     */
+    private static char[] formerReplaceAll(char[] data, char oldChar, char newChar) {
+        char[] newInstance = data.clone();
+        for (int i = 0; i < newInstance.length; i++) {
+            if (newInstance[i] == oldChar) {
+                newInstance[i] = newChar;
+            }
+        }
+        return newInstance;
+    }
+
+}
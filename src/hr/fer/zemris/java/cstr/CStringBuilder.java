@@ -0,0 +1,346 @@
+package hr.fer.zemris.java.cstr;
+
+/**
+ * The <tt>CStringBuilder</tt> class represents a mutable sequence of
+ * characters that is used to build a {@linkplain CString} piece by piece. For
+ * example:
+ * <blockquote><pre>
+ *     CString report = new CStringBuilder()
+ *             .append(CString.fromString("Shapes: "))
+ *             .append(7)
+ *             .append('\n')
+ *             .toCString();
+ * </pre></blockquote><p>
+ * The characters are stored in an internal array with the initial capacity
+ * specified by the caller or 16 by default. If the array gets filled, its
+ * capacity expands to twice the current capacity plus two, or to the required
+ * capacity if that is larger. Appending is thus of amortized constant
+ * complexity per character, unlike repeated calls of
+ * {@linkplain CString#add(CString)} which copy all characters every time.
+ * <p>
+ * The {@linkplain #toCString()} method does not copy the characters, but
+ * hands the internal array over to the returned CString. The builder may still
+ * be used afterwards, in which case the internal array is copied on the first
+ * modification, so the returned CString stays immutable.
+ *
+ * @author Mario Bobic
+ */
+public class CStringBuilder {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The array into which the characters of this builder are stored. */
+    private char[] data;
+    /** The number of characters in this builder. */
+    private int count;
+    /**
+     * True if the internal array has been handed over to a CString and must
+     * be copied before it is modified.
+     */
+    private boolean shared;
+
+    /**
+     * Constructs an empty CStringBuilder with the default capacity of 16.
+     */
+    public CStringBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty CStringBuilder with the specified initial capacity.
+     *
+     * @param initialCapacity initial capacity of this builder
+     * @throws IllegalArgumentException if the specified initial capacity is
+     *         negative
+     */
+    public CStringBuilder(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity must not be negative.");
+        }
+        data = new char[initialCapacity];
+    }
+
+    /**
+     * Constructs a CStringBuilder initialized to the contents of the specified
+     * CString, with room for 16 more characters.
+     *
+     * @param s the initial contents of this builder
+     * @throws IllegalArgumentException if <tt>s</tt> is <tt>null</tt>
+     */
+    public CStringBuilder(CString s) {
+        this(checkArgument(s).length + DEFAULT_CAPACITY);
+        append(s);
+    }
+
+    /**
+     * Returns the number of characters in this builder.
+     *
+     * @return the number of characters in this builder
+     */
+    public int length() {
+        return count;
+    }
+
+    /**
+     * Returns the current capacity of this builder, which is the number of
+     * characters it can hold before the internal array is expanded.
+     *
+     * @return the current capacity of this builder
+     */
+    public int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Returns the <tt>char</tt> value at the specified <tt>index</tt>.
+     *
+     * @param index index of the <tt>char</tt> value to be returned
+     * @return the <tt>char</tt> value at the specified index
+     * @throws StringIndexOutOfBoundsException if the index is not within
+     *         this builder
+     */
+    public char charAt(int index) {
+        if ((index < 0) || (index >= count)) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return data[index];
+    }
+
+    /**
+     * Appends the specified character to this builder.
+     *
+     * @param c the character to be appended
+     * @return this builder
+     */
+    public CStringBuilder append(char c) {
+        ensureCapacity(count + 1);
+        data[count++] = c;
+        return this;
+    }
+
+    /**
+     * Appends the characters of the specified CString to this builder.
+     *
+     * @param s the CString to be appended
+     * @return this builder
+     * @throws IllegalArgumentException if <tt>s</tt> is <tt>null</tt>
+     */
+    public CStringBuilder append(CString s) {
+        checkArgument(s);
+        ensureCapacity(count + s.length);
+        System.arraycopy(s.data, s.offset, data, count, s.length);
+        count += s.length;
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of the specified integer to this
+     * builder. The digits are written directly into the internal array, with
+     * no intermediate {@linkplain String} being created.
+     *
+     * @param i the integer to be appended
+     * @return this builder
+     */
+    public CStringBuilder append(int i) {
+        if (i == Integer.MIN_VALUE) {
+            return append(CString.fromString(Integer.toString(i)));
+        }
+
+        int digits = 1;
+        for (int n = Math.abs(i); n >= 10; n /= 10) {
+            digits++;
+        }
+        int size = (i < 0) ? digits+1 : digits;
+        ensureCapacity(count + size);
+
+        int position = count + size;
+        int n = Math.abs(i);
+        do {
+            data[--position] = (char) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        if (i < 0) {
+            data[count] = '-';
+        }
+
+        count += size;
+        return this;
+    }
+
+    /**
+     * Inserts the specified character at the specified position in this
+     * builder, shifting the characters at and after that position to the
+     * right. The legal positions are <tt>0</tt> to <tt>length()</tt>.
+     *
+     * @param index position at which the character is inserted
+     * @param c the character to be inserted
+     * @return this builder
+     * @throws StringIndexOutOfBoundsException if the index is out of range
+     */
+    public CStringBuilder insert(int index, char c) {
+        checkPosition(index);
+        ensureCapacity(count + 1);
+        System.arraycopy(data, index, data, index+1, count-index);
+        data[index] = c;
+        count++;
+        return this;
+    }
+
+    /**
+     * Inserts the characters of the specified CString at the specified
+     * position in this builder, shifting the characters at and after that
+     * position to the right. The legal positions are <tt>0</tt> to
+     * <tt>length()</tt>.
+     *
+     * @param index position at which the CString is inserted
+     * @param s the CString to be inserted
+     * @return this builder
+     * @throws IllegalArgumentException if <tt>s</tt> is <tt>null</tt>
+     * @throws StringIndexOutOfBoundsException if the index is out of range
+     */
+    public CStringBuilder insert(int index, CString s) {
+        checkArgument(s);
+        checkPosition(index);
+        ensureCapacity(count + s.length);
+        System.arraycopy(data, index, data, index+s.length, count-index);
+        System.arraycopy(s.data, s.offset, data, index, s.length);
+        count += s.length;
+        return this;
+    }
+
+    /**
+     * Removes the characters of this builder starting from the specified
+     * <tt>startIndex</tt> and ending on the character at index
+     * <tt>endIndex - 1</tt>. If <tt>endIndex</tt> is greater than the length
+     * of this builder, characters up to the end are removed.
+     *
+     * @param startIndex the starting index, inclusive
+     * @param endIndex the ending index, exclusive
+     * @return this builder
+     * @throws StringIndexOutOfBoundsException if <tt>startIndex</tt> is
+     *         negative, greater than <tt>length()</tt> or greater than
+     *         <tt>endIndex</tt>
+     */
+    public CStringBuilder delete(int startIndex, int endIndex) {
+        if (endIndex > count) {
+            endIndex = count;
+        }
+        if (startIndex < 0 || startIndex > endIndex) {
+            throw new StringIndexOutOfBoundsException(startIndex);
+        }
+
+        int removed = endIndex - startIndex;
+        if (removed > 0) {
+            ensureCapacity(count);
+            System.arraycopy(data, endIndex, data, startIndex, count-endIndex);
+            count -= removed;
+        }
+        return this;
+    }
+
+    /**
+     * Removes all characters from this builder. The capacity of this builder
+     * is kept, unless the internal array is shared with a CString.
+     *
+     * @return this builder
+     */
+    public CStringBuilder clear() {
+        if (shared) {
+            data = new char[data.length];
+            shared = false;
+        }
+        count = 0;
+        return this;
+    }
+
+    /**
+     * Returns a CString representing the characters of this builder. The
+     * internal array is handed over to the returned CString without copying.
+     * If this builder is modified afterwards, it first makes its own copy of
+     * the array, so the returned CString is never changed.
+     * <p>
+     * Note that the returned CString keeps the whole internal array, including
+     * the unused capacity. The {@linkplain CString#CString(CString)}
+     * constructor can be used to obtain a compact copy.
+     *
+     * @return a CString representing the characters of this builder
+     */
+    public CString toCString() {
+        shared = true;
+        return new CString(0, count, data);
+    }
+
+    /**
+     * Returns a string representation of the characters of this builder.
+     *
+     * @return a string representation of this builder
+     */
+    @Override
+    public String toString() {
+        return new String(data, 0, count);
+    }
+
+    /**
+     * Ensures that the internal array can hold at least
+     * <tt>minCapacity</tt> characters and that it is not shared with a
+     * CString. If the array is too small, it is expanded to twice its current
+     * capacity plus two, or to <tt>minCapacity</tt> if that is larger. If the
+     * array is shared, it is copied even if it is large enough.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity too large.");
+        }
+        if (minCapacity <= data.length && !shared) {
+            return;
+        }
+
+        int newCapacity = data.length;
+        if (minCapacity > newCapacity) {
+            newCapacity = data.length*2 + 2;
+            if (newCapacity < minCapacity || newCapacity < 0) {
+                newCapacity = minCapacity;
+            }
+        }
+
+        char[] newData = new char[newCapacity];
+        System.arraycopy(data, 0, newData, 0, count);
+        data = newData;
+        shared = false;
+    }
+
+    /**
+     * Checks if the <tt>index</tt> is a legal insertion position, that is in
+     * range of <tt>[0, length()]</tt>. If it is not, a
+     * {@linkplain StringIndexOutOfBoundsException} is thrown.
+     *
+     * @param index index to be checked
+     * @throws StringIndexOutOfBoundsException if the index is out of range
+     */
+    private void checkPosition(int index) {
+        if (index < 0 || index > count) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * Checks if the argument is <tt>null</tt> and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     * If checking is successful, the same object is returned.
+     *
+     * @param <T> the object type
+     * @param arg argument to be checked if it is a <tt>null</tt> reference
+     * @return the object given as argument, if not <tt>null</tt>
+     * @throws IllegalArgumentException if the argument is <tt>null</tt>
+     */
+    private static <T> T checkArgument(T arg) {
+        if (arg == null) {
+            throw new IllegalArgumentException("Argument must not be null.");
+        }
+        return arg;
+    }
+
+}
@@ -0,0 +1,505 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The <tt>CStringMatcher</tt> class searches a {@linkplain CString} for many
+ * patterns at once. The matcher is built once from a set of non-empty pattern
+ * CStrings and can then be used on any number of CStrings. For example:
+ * <blockquote><pre>
+ *     CStringMatcher matcher = new CStringMatcher(
+ *             CString.fromString("he"), CString.fromString("she"),
+ *             CString.fromString("his"), CString.fromString("hers"));
+ *     matcher.findAll(CString.fromString("ushers"));
+ * </pre></blockquote><p>
+ * finds <tt>"she"</tt> and <tt>"he"</tt> both ending at index <tt>4</tt>
+ * and <tt>"hers"</tt> ending at index <tt>6</tt>.
+ * <p>
+ * The matcher is an Aho-Corasick automaton. Its states are the nodes of a trie
+ * of all patterns, numbered in breadth-first order so that the children of
+ * every state occupy a contiguous range of state numbers with their labels
+ * sorted. The whole trie is thus stored in a few <tt>int</tt> and
+ * <tt>char</tt> arrays, and a transition is a binary search over the labels of
+ * one state's children. Each state also has a <i>failure</i> link to the state
+ * of its longest proper suffix and a <i>dictionary</i> link to the nearest
+ * such state that ends a pattern.
+ * <p>
+ * Searching takes a single pass over the characters of the searched CString,
+ * reading its character array directly, and its complexity is linear in the
+ * length of the CString plus the number of reported matches, regardless of the
+ * number of patterns.
+ * <p>
+ * If the same pattern is given more than once, its matches are reported only
+ * for the first occurrence of the pattern.
+ *
+ * @author Mario Bobic
+ * @see CString#replaceAll(java.util.Map)
+ */
+public class CStringMatcher {
+
+    /** The root state of the automaton. */
+    private static final int ROOT = 0;
+    /** Marks the absence of a state or a pattern. */
+    private static final int NONE = -1;
+
+    /** Patterns this matcher searches for. */
+    private final CString[] patterns;
+
+    /** Label of the transition that leads into each state. */
+    private final char[] label;
+    /** The first child of each state. */
+    private final int[] childStart;
+    /** The end of children of each state, exclusive. */
+    private final int[] childEnd;
+    /** Failure link of each state. */
+    private final int[] fail;
+    /** Dictionary link of each state. */
+    private final int[] dictionary;
+    /** Index of the pattern that ends in each state, or {@link #NONE}. */
+    private final int[] pattern;
+
+    /**
+     * Constructs a new CStringMatcher that searches for the specified
+     * patterns. Patterns are identified by their index in the given array.
+     * <p>
+     * This constructor throws an {@linkplain IllegalArgumentException} if the
+     * array or any of the patterns is <tt>null</tt>, or if any of the
+     * patterns is empty.
+     *
+     * @param patterns patterns to be searched for
+     * @throws IllegalArgumentException if the array or any of the patterns is
+     *         <tt>null</tt> or if any of the patterns is empty
+     */
+    public CStringMatcher(CString... patterns) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("Patterns must not be null.");
+        }
+
+        int states = 1;
+        for (CString p : patterns) {
+            if (p == null) {
+                throw new IllegalArgumentException("Pattern must not be null.");
+            }
+            if (p.isEmpty()) {
+                throw new IllegalArgumentException("Pattern must not be empty.");
+            }
+            states += p.length;
+        }
+
+        this.patterns = patterns.clone();
+        label = new char[states];
+        childStart = new int[states];
+        childEnd = new int[states];
+        fail = new int[states];
+        dictionary = new int[states];
+        pattern = new int[states];
+
+        int count = buildTrie();
+        buildLinks(count);
+    }
+
+    /**
+     * Returns the number of patterns this matcher searches for.
+     *
+     * @return the number of patterns
+     */
+    public int getPatternCount() {
+        return patterns.length;
+    }
+
+    /**
+     * Returns the pattern with the specified index.
+     *
+     * @param index index of the pattern
+     * @return the pattern with the specified index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public CString getPattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Returns true if any of the patterns occurs in the specified CString.
+     * False otherwise. The search stops at the first found occurrence.
+     *
+     * @param text the CString to be searched
+     * @return true if any of the patterns occurs in the CString
+     * @throws IllegalArgumentException if <tt>text</tt> is <tt>null</tt>
+     */
+    public boolean containsAny(CString text) {
+        checkText(text);
+
+        int state = ROOT;
+        int end = text.offset + text.length;
+        for (int i = text.offset; i < end; i++) {
+            state = step(state, text.data[i]);
+            if (pattern[state] != NONE || dictionary[state] != NONE) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns all occurrences of all patterns in the specified CString,
+     * including the overlapping ones. Matches are ordered by their end index,
+     * and matches with the same end index from the longest to the shortest.
+     *
+     * @param text the CString to be searched
+     * @return a list of all matches
+     * @throws IllegalArgumentException if <tt>text</tt> is <tt>null</tt>
+     */
+    public List<Match> findAll(CString text) {
+        checkText(text);
+        List<Match> matches = new ArrayList<>();
+
+        int state = ROOT;
+        for (int i = 0; i < text.length; i++) {
+            state = step(state, text.data[i+text.offset]);
+            int s = (pattern[state] != NONE) ? state : dictionary[state];
+            for (; s != NONE; s = dictionary[s]) {
+                int p = pattern[s];
+                matches.add(new Match(p, i+1 - patterns[p].length, i+1));
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns a CString resulting from replacing occurrences of the patterns
+     * in the specified CString with their replacements, where the pattern at
+     * index <tt>i</tt> is replaced with <tt>replacements[i]</tt>.
+     * <p>
+     * Occurrences are replaced from left to right. If several patterns begin
+     * at the same index, the longest one is replaced, and occurrences that
+     * overlap an already replaced one are ignored. The replaced text is not
+     * searched again. If nothing is replaced, <tt>text</tt> is returned.
+     * <p>
+     * The length of the resulting CString is computed before any copying
+     * takes place, so its character array is allocated only once.
+     *
+     * @param text the CString in which patterns are replaced
+     * @param replacements replacements of the patterns, by pattern index
+     * @return a CString with the patterns replaced
+     * @throws IllegalArgumentException if any of the arguments is
+     *         <tt>null</tt> or the number of replacements is not equal to the
+     *         number of patterns
+     */
+    public CString replaceAll(CString text, CString[] replacements) {
+        checkText(text);
+        if (replacements == null || replacements.length != patterns.length) {
+            throw new IllegalArgumentException("Expected " + patterns.length + " replacements.");
+        }
+        for (CString r : replacements) {
+            if (r == null) {
+                throw new IllegalArgumentException("Replacement must not be null.");
+            }
+        }
+
+        /* The longest pattern starting at each index, found in one pass. */
+        int[] longest = null;
+        int state = ROOT;
+        for (int i = 0; i < text.length; i++) {
+            state = step(state, text.data[i+text.offset]);
+            int s = (pattern[state] != NONE) ? state : dictionary[state];
+            if (s == NONE) {
+                continue;
+            }
+            if (longest == null) {
+                longest = new int[text.length];
+                Arrays.fill(longest, NONE);
+            }
+            for (; s != NONE; s = dictionary[s]) {
+                int p = pattern[s];
+                int start = i+1 - patterns[p].length;
+                if (longest[start] == NONE || patterns[longest[start]].length < patterns[p].length) {
+                    longest[start] = p;
+                }
+            }
+        }
+        if (longest == null) {
+            return text;
+        }
+
+        int newLength = 0;
+        for (int i = 0; i < text.length; ) {
+            int p = longest[i];
+            if (p == NONE) {
+                newLength++;
+                i++;
+            } else {
+                newLength += replacements[p].length;
+                i += patterns[p].length;
+            }
+        }
+
+        char[] replaced = new char[newLength];
+        int position = 0;
+        for (int i = 0; i < text.length; ) {
+            int p = longest[i];
+            if (p == NONE) {
+                replaced[position++] = text.data[i+text.offset];
+                i++;
+            } else {
+                CString r = replacements[p];
+                System.arraycopy(r.data, r.offset, replaced, position, r.length);
+                position += r.length;
+                i += patterns[p].length;
+            }
+        }
+
+        return new CString(0, replaced.length, replaced);
+    }
+
+    /**
+     * Returns the state the automaton moves to from the specified state upon
+     * reading the character <tt>c</tt>, following failure links as long as
+     * there is no transition.
+     *
+     * @param state the current state
+     * @param c the read character
+     * @return the next state
+     */
+    private int step(int state, char c) {
+        while (true) {
+            int next = child(state, c);
+            if (next != NONE) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Returns the child of the specified state with the label <tt>c</tt>, or
+     * {@link #NONE} if there is no such child. The children labels are
+     * sorted, so the child is found by binary search.
+     *
+     * @param state the parent state
+     * @param c label of the child
+     * @return the child of the state with the label, or {@link #NONE}
+     */
+    private int child(int state, char c) {
+        int lo = childStart[state];
+        int hi = childEnd[state] - 1;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char midLabel = label[mid];
+            if (midLabel < c) {
+                lo = mid + 1;
+            } else if (midLabel > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Builds the trie of all patterns in breadth-first order. Patterns are
+     * first sorted, so the patterns sharing the prefix of a state form a
+     * contiguous range and the children of a state are discovered in the order
+     * of their labels.
+     *
+     * @return the number of states of the trie
+     */
+    private int buildTrie() {
+        Integer[] order = new Integer[patterns.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                int c = compareContents(patterns[i1], patterns[i2]);
+                return (c != 0) ? c : Integer.compare(i1, i2);
+            }
+        });
+
+        /* Range of sorted patterns passing through each state. */
+        int[] rangeStart = new int[label.length];
+        int[] rangeEnd = new int[label.length];
+        int[] depth = new int[label.length];
+
+        rangeEnd[ROOT] = order.length;
+        pattern[ROOT] = NONE;
+        int count = 1;
+
+        for (int state = 0; state < count; state++) {
+            int d = depth[state];
+            int i = rangeStart[state];
+            int end = rangeEnd[state];
+
+            /* Shorter patterns come first, as they are prefixes of the rest. */
+            if (state != ROOT) {
+                pattern[state] = patterns[order[i]].length == d ? order[i] : NONE;
+            }
+            while (i < end && patterns[order[i]].length == d) {
+                i++;
+            }
+
+            childStart[state] = count;
+            while (i < end) {
+                char c = charAt(patterns[order[i]], d);
+                int j = i+1;
+                while (j < end && charAt(patterns[order[j]], d) == c) {
+                    j++;
+                }
+
+                label[count] = c;
+                depth[count] = d+1;
+                rangeStart[count] = i;
+                rangeEnd[count] = j;
+                fail[count] = state; // parent, until links are built
+                count++;
+                i = j;
+            }
+            childEnd[state] = count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Replaces the parent of each state, temporarily stored as its failure
+     * link, with the failure link and builds the dictionary links. States are
+     * visited in breadth-first order, so links of shallower states are always
+     * computed first.
+     *
+     * @param count the number of states
+     */
+    private void buildLinks(int count) {
+        fail[ROOT] = ROOT;
+        dictionary[ROOT] = NONE;
+
+        for (int state = 1; state < count; state++) {
+            int parent = fail[state];
+            if (parent == ROOT) {
+                fail[state] = ROOT;
+            } else {
+                fail[state] = step(fail[parent], label[state]);
+            }
+
+            int f = fail[state];
+            dictionary[state] = (pattern[f] != NONE) ? f : dictionary[f];
+        }
+    }
+
+    /**
+     * Compares the contents of two CStrings lexicographically.
+     *
+     * @param s1 the first CString
+     * @param s2 the second CString
+     * @return a negative integer, zero, or a positive integer as the first
+     *         CString is less than, equal to, or greater than the second
+     */
+    private static int compareContents(CString s1, CString s2) {
+        int min = Math.min(s1.length, s2.length);
+        for (int i = 0; i < min; i++) {
+            char c1 = s1.data[i+s1.offset];
+            char c2 = s2.data[i+s2.offset];
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return s1.length - s2.length;
+    }
+
+    /**
+     * Returns the character of the CString at the specified index without
+     * checking the index.
+     *
+     * @param s the CString
+     * @param index index of the character
+     * @return the character at the specified index
+     */
+    private static char charAt(CString s, int index) {
+        return s.data[index+s.offset];
+    }
+
+    /**
+     * Checks if the searched CString is <tt>null</tt> and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     *
+     * @param text the searched CString
+     * @throws IllegalArgumentException if <tt>text</tt> is <tt>null</tt>
+     */
+    private static void checkText(CString text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Argument must not be null.");
+        }
+    }
+
+    /**
+     * An occurrence of a pattern in a searched CString. The occurrence is
+     * specified by the index of the pattern and by its start and end index in
+     * the searched CString.
+     */
+    public static class Match {
+
+        /** Index of the matched pattern. */
+        private final int pattern;
+        /** Start index of the occurrence, inclusive. */
+        private final int start;
+        /** End index of the occurrence, exclusive. */
+        private final int end;
+
+        /**
+         * Constructs a new Match of the specified pattern.
+         *
+         * @param pattern index of the matched pattern
+         * @param start start index of the occurrence, inclusive
+         * @param end end index of the occurrence, exclusive
+         */
+        Match(int pattern, int start, int end) {
+            this.pattern = pattern;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the index of the matched pattern.
+         *
+         * @return the index of the matched pattern
+         */
+        public int getPattern() {
+            return pattern;
+        }
+
+        /**
+         * Returns the start index of the occurrence, inclusive.
+         *
+         * @return the start index of the occurrence
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the end index of the occurrence, exclusive.
+         *
+         * @return the end index of the occurrence
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return pattern + "@[" + start + ", " + end + ")";
+        }
+
+    }
+
+}
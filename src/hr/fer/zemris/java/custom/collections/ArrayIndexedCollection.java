@@ -1,27 +1,82 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * An array indexed collection stores objects into a fixed-size array with the
  * initial capacity specified by the caller or 16 by default. If the array gets
  * filled, this class ensures that the capacity expands to twice the number of
- * the current capacity of the array.
+ * the current capacity of the array, or by another growth factor specified by
+ * the caller.
+ * <p>
+ * The capacity never drops below the initial capacity, but it is not kept at
+ * its peak either. When removals leave the array filled less than
+ * <code>1/factor^2</code>, the capacity shrinks to the size multiplied by the
+ * growth factor, so that alternating additions and removals around a
+ * threshold never resize the array back and forth. Clearing the collection
+ * returns it to its initial capacity, and {@linkplain #trimToSize()} shrinks
+ * the array to the size of the collection on demand. The
+ * {@linkplain #memoryFootprint()} method estimates the memory occupied by the
+ * collection.
  * <p>
  * This implementation <b>allows</b> duplicate elements <code>null</code>
  * references.
+ * <p>
+ * Elements of this collection can be processed in parallel, either by the
+ * {@linkplain #parallelForEach(Processor)} method or through a
+ * {@linkplain #stream() stream}, as the index range of the internal array is
+ * easily split into independent halves.
+ * <p>
+ * Elements can also be traversed by an {@linkplain #iterator() iterator} or by
+ * a reusable {@linkplain #cursor() cursor}, which read the internal array
+ * directly instead of copying it like {@linkplain #toArray()} does. Both are
+ * <i>fail-fast</i>: if the collection is structurally modified in any way
+ * other than through the cursor itself, the next call of the cursor throws a
+ * {@linkplain ConcurrentModificationException}.
  *
  * @author Mario Bobic
  */
-public class ArrayIndexedCollection extends Collection {
+public class ArrayIndexedCollection extends Collection implements Iterable<Object> {
 
     /** Default initial capacity. */
     private static final int DEFAULT_CAPACITY = 16;
+    /** Default growth factor. */
+    private static final double DEFAULT_GROWTH_FACTOR = 2;
+    /** The largest capacity the array may grow to. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /** Estimated size of an object header in bytes. */
+    private static final int OBJECT_HEADER = 12;
+    /** Estimated size of an array header in bytes. */
+    private static final int ARRAY_HEADER = 16;
+    /** Estimated size of a reference in bytes. */
+    private static final int REFERENCE = 4;
+    /** Objects are aligned to this number of bytes. */
+    private static final int ALIGNMENT = 8;
 
     /** The size of this collection (the number of elements it contains). */
     private int size;
     /** Current capacity of this collection's array. */
     private int capacity;
+    /** The capacity below which this collection never shrinks. */
+    private final int initialCapacity;
+    /** The factor by which the capacity grows and shrinks. */
+    private final double growthFactor;
     /** The array into which the elements of this collection are stored. */
     private Object[] elements;
+    /**
+     * The number of times this collection has been structurally modified,
+     * used by cursors to detect concurrent modification.
+     */
+    private int modCount;
 
     /**
      * Constructs an instance of ArrayIndexedCollection with the default
@@ -40,9 +95,28 @@ public class ArrayIndexedCollection extends Collection {
      *         is less than 1
      */
     public ArrayIndexedCollection(int initialCapacity) {
+        this(initialCapacity, DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * Constructs an instance of ArrayIndexedCollection with the capacity set to
+     * <code>initialCapacity</code> and the specified growth factor. A smaller
+     * growth factor wastes less memory, but expands the array more often.
+     *
+     * @param initialCapacity initial capacity of this collection
+     * @param growthFactor factor by which the capacity grows and shrinks
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is less than 1 or the growth factor is not greater than 1
+     */
+    public ArrayIndexedCollection(int initialCapacity, double growthFactor) {
         if (initialCapacity < 1) {
             throw new IllegalArgumentException("Initial capacity must not be less than 1.");
         }
+        if (!(growthFactor > 1)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1: " + growthFactor);
+        }
+        this.initialCapacity = initialCapacity;
+        this.growthFactor = growthFactor;
         capacity = initialCapacity;
         elements = new Object[capacity];
     }
@@ -75,11 +149,61 @@ public class ArrayIndexedCollection extends Collection {
         addAll(other);
     }
 
+    /**
+     * Constructs an instance of ArrayIndexedCollection containing the elements
+     * of the specified array, with the capacity of
+     * <code>MAX(array.length, 16)</code>.
+     *
+     * @param array the array whose elements are to be placed into this one
+     * @throws NullPointerException if the specified array is null
+     */
+    public ArrayIndexedCollection(Object[] array) {
+        this(Math.max(array.length, DEFAULT_CAPACITY));
+        addAll(array);
+    }
+
     @Override
     public int size() {
         return size;
     }
 
+    /**
+     * Returns the current capacity of this collection, which is the number of
+     * elements it can hold before its array is expanded.
+     *
+     * @return the current capacity of this collection
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Shrinks the capacity of this collection to its current size, but not
+     * below 1. This method can be used to minimize the memory of a collection
+     * that is not going to grow any more.
+     */
+    public void trimToSize() {
+        int newCapacity = Math.max(size, 1);
+        if (newCapacity < capacity) {
+            capacity = newCapacity;
+            elements = copyOfArray(elements, capacity);
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory occupied by this collection in bytes,
+     * which includes this object and its array, but not the elements it
+     * references. The estimate assumes a 64-bit virtual machine with
+     * compressed references.
+     *
+     * @return an estimate of the memory occupied by this collection in bytes
+     */
+    public long memoryFootprint() {
+        long self = OBJECT_HEADER + 4*4 + 8 + REFERENCE;
+        long array = ARRAY_HEADER + (long) capacity * REFERENCE;
+        return align(self) + align(array);
+    }
+
     /**
      * Adds the given object into this collection (reference is added into first
      * empty place in this collection). The average complexity of this method is
@@ -92,6 +216,7 @@ public class ArrayIndexedCollection extends Collection {
         ensureCapacity();
         elements[size] = value;
         size++;
+        modCount++;
     }
 
     /**
@@ -109,12 +234,124 @@ public class ArrayIndexedCollection extends Collection {
      * @throws IndexOutOfBoundsException if the position index is out of range
      */
     public void insert(Object value, int position) {
-        checkIndex(position);
+        checkPosition(position);
 
         ensureCapacity();
-        shiftRight(position);
+        shiftRight(position, 1);
         elements[position] = value;
         size++;
+        modCount++;
+    }
+
+    /**
+     * Adds all of the elements in the specified collection to the end of this
+     * collection. This other collection remains unchanged.
+     * <p>
+     * The capacity of this collection is expanded at most once, to fit all
+     * the new elements. If the other collection is an
+     * <code>ArrayIndexedCollection</code>, its elements are copied in a single
+     * block copy, otherwise they are added one by one, each finding enough
+     * room in the already expanded array.
+     *
+     * @param other collection containing elements to be added to this collection
+     * @throws NullPointerException if the specified collection is null
+     */
+    @Override
+    public void addAll(Collection other) {
+        if (other instanceof ArrayIndexedCollection) {
+            ArrayIndexedCollection array = (ArrayIndexedCollection) other;
+            /* The size is read first, in case other is this collection. */
+            int otherSize = array.size;
+            ensureCapacity(size + otherSize);
+            System.arraycopy(array.elements, 0, elements, size, otherSize);
+            size += otherSize;
+            modCount++;
+        } else {
+            ensureCapacity(size + other.size());
+            other.forEach(new Processor() {
+                @Override
+                public void process(Object value) {
+                    add(value);
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds all of the elements in the specified array to the end of this
+     * collection, in the order of the array. The capacity of this collection
+     * is expanded at most once and the elements are copied in a single block
+     * copy.
+     *
+     * @param array array containing elements to be added to this collection
+     * @throws NullPointerException if the specified array is null
+     */
+    public void addAll(Object[] array) {
+        ensureCapacity(size + array.length);
+        System.arraycopy(array, 0, elements, size, array.length);
+        size += array.length;
+        modCount++;
+    }
+
+    /**
+     * Inserts all of the elements in the specified collection at the given
+     * position in this collection, in the order in which the other collection
+     * sends them to {@link Collection#forEach forEach}. The element currently
+     * at that position (if any) and any subsequent elements are shifted to the
+     * right only once, by the number of inserted elements.
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the index
+     * is outside of those boundaries, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param position index at which the first element is to be inserted
+     * @param other collection containing elements to be inserted
+     * @throws IndexOutOfBoundsException if the position index is out of range
+     * @throws NullPointerException if the specified collection is null
+     */
+    public void insertAll(int position, Collection other) {
+        checkPosition(position);
+
+        /* Elements of this collection would be moved before being copied. */
+        Object[] inserted = (other instanceof ArrayIndexedCollection && other != this)
+                ? ((ArrayIndexedCollection) other).elements
+                : other.toArray();
+        int count = other.size();
+        if (count == 0) {
+            return;
+        }
+
+        ensureCapacity(size + count);
+        shiftRight(position, count);
+        System.arraycopy(inserted, 0, elements, position, count);
+        size += count;
+        modCount++;
+    }
+
+    /**
+     * Removes all of the elements whose index is between <code>fromIndex</code>,
+     * inclusive, and <code>toIndex</code>, exclusive. The subsequent elements
+     * are shifted to the left in a single block copy.
+     * <p>
+     * This method throws an {@linkplain IndexOutOfBoundsException} if
+     * <code>fromIndex</code> is negative, <code>toIndex</code> is greater than
+     * <code>size</code>, or <code>fromIndex</code> is greater than
+     * <code>toIndex</code>.
+     *
+     * @param fromIndex index of the first element to be removed
+     * @param toIndex index after the last element to be removed
+     * @throws IndexOutOfBoundsException if the range is invalid
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                "Invalid range: [" + fromIndex + ", " + toIndex + ")");
+        }
+
+        shiftLeft(fromIndex, toIndex - fromIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+        shrinkIfSparse();
     }
 
     @Override
@@ -196,14 +433,18 @@ public class ArrayIndexedCollection extends Collection {
     public void remove(int index) {
         checkIndex(index);
 
-        shiftLeft(index);
+        shiftLeft(index, 1);
         size--;
+        modCount++;
+        shrinkIfSparse();
     }
 
     @Override
     public void clear() {
+        capacity = initialCapacity;
         elements = new Object[capacity];
         size = 0;
+        modCount++;
     }
 
     @Override
@@ -226,49 +467,191 @@ public class ArrayIndexedCollection extends Collection {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads the internal array directly and stops as soon
+     * as the sink asks to, so all stages of a pipeline are fused into a single
+     * loop over the elements.
+     */
+    @Override
+    void traverse(Pipeline.Sink sink) {
+        Object[] elements = this.elements;
+        int size = this.size;
+        for (int i = 0; i < size; i++) {
+            if (!sink.accept(elements[i])) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The index range of this collection is recursively split in halves
+     * which are processed as tasks of the common {@linkplain ForkJoinPool},
+     * until the ranges are small enough to be processed sequentially. The
+     * collection must not be modified while this method runs.
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void parallelForEach(Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (size < 2 || parallelism < 2) {
+            forEach(processor);
+            return;
+        }
+
+        /* A few ranges per thread, so that uneven work is balanced. */
+        int threshold = Math.max(size / (parallelism * 4), 1);
+        ForkJoinPool.commonPool().invoke(
+                new ForEachTask(elements, 0, size, threshold, processor));
+    }
+
+    /**
+     * Returns a fail-fast iterator over the elements of this collection in
+     * index order. The iterator reads the internal array directly and does not
+     * copy it. The returned iterator is a {@linkplain Cursor}.
+     *
+     * @return an iterator over the elements of this collection
+     */
+    @Override
+    public Iterator<Object> iterator() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a new fail-fast cursor positioned before the first element of
+     * this collection. A cursor may be {@link Cursor#reset() reset} and used
+     * for any number of traversals, so repeated traversals allocate nothing.
+     *
+     * @return a new cursor over the elements of this collection
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a {@linkplain Spliterator} over the elements of this collection.
+     * The spliterator is backed by the internal array and splits its index
+     * range in halves. The collection must not be modified while the
+     * spliterator is used.
+     *
+     * @return a spliterator over the elements of this collection
+     */
+    @Override
+    public Spliterator<Object> spliterator() {
+        return Spliterators.spliterator(elements, 0, size, Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a sequential {@linkplain Stream} of the elements of this
+     * collection.
+     *
+     * @return a sequential stream of the elements of this collection
+     * @see #spliterator()
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel {@linkplain Stream} of the elements of this
+     * collection.
+     *
+     * @return a parallel stream of the elements of this collection
+     * @see #spliterator()
+     */
+    public Stream<Object> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     /**
      * Increases the capacity of this collection instance if necessary, to
      * ensure that it can hold new elements. More formally, the collection's
      * array is full if <code>size == capacity</code>, and its capacity will be
-     * doubled.
+     * multiplied by the growth factor.
      */
     private void ensureCapacity() {
-        if (size == capacity) {
-            capacity *= 2;
+        ensureCapacity(size + 1);
+    }
+
+    /**
+     * Increases the capacity of this collection instance if necessary, to
+     * ensure that it can hold at least <code>minCapacity</code> elements. The
+     * capacity is multiplied by the growth factor, or set to
+     * <code>minCapacity</code> if that is not enough, so that a bulk addition
+     * expands the array at most once.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required capacity too large.");
+        }
+        if (minCapacity > capacity) {
+            double grown = Math.min(capacity * growthFactor, MAX_CAPACITY);
+            capacity = Math.max((int) grown, minCapacity);
             elements = copyOfArray(elements, capacity);
         }
     }
 
     /**
-     * Shifts the backing array to the right due to an insertion. The shifting
-     * starts at the end of the backing array (size-1) and ends at the specified
-     * index. This method expects that there is enough capacity for shifting to
-     * the right because the last element will be shifted to position <tt>size</tt>.
+     * Decreases the capacity of this collection after removals if the array is
+     * filled less than <code>1/factor^2</code>. The new capacity is the size
+     * multiplied by the growth factor, but not below the initial capacity,
+     * which leaves room for the collection to grow by the growth factor before
+     * it is expanded again.
+     */
+    private void shrinkIfSparse() {
+        if (capacity <= initialCapacity || size > capacity / (growthFactor * growthFactor)) {
+            return;
+        }
+
+        int newCapacity = Math.max((int) Math.ceil(size * growthFactor), initialCapacity);
+        if (newCapacity < capacity) {
+            capacity = newCapacity;
+            elements = copyOfArray(elements, capacity);
+        }
+    }
+
+    /**
+     * Shifts the backing array <code>amount</code> places to the right due to
+     * an insertion, using a single block copy. The elements from the specified
+     * index to size-1 are moved. This method expects that there is enough
+     * capacity for shifting to the right because the last element will be
+     * shifted to position <tt>size+amount-1</tt>.
      *
-     * @param index index where to end shifting
+     * @param index index of the first element to be shifted
+     * @param amount number of places to shift the elements by
      */
-    private void shiftRight(int index) {
-        for (int i = size-1; i >= index; i--) {
-            elements[i+1] = elements[i];
+    private void shiftRight(int index, int amount) {
+        System.arraycopy(elements, index, elements, index+amount, size-index);
+        /* Set the shifted elements' duplicates to null. */
+        for (int i = index, end = Math.min(index+amount, size); i < end; i++) {
+            elements[i] = null;
         }
-        /* Set the last shifted element's duplicate to null. */
-        elements[index] = null;
     }
 
     /**
-     * Shifts the backing array to the left due to element removal. The shifting
-     * starts at the specified index and ends at size-1. The element at the
-     * position <code>index</code> is expected to be <code>null</code> as it is
-     * overridden.
+     * Shifts the backing array <code>amount</code> places to the left due to
+     * element removal, using a single block copy. The elements from position
+     * <code>index+amount</code> to size-1 are moved, overriding the elements
+     * from position <code>index</code>.
      *
-     * @param index index where to start shifting
+     * @param index index of the first element to be overridden
+     * @param amount number of places to shift the elements by
      */
-    private void shiftLeft(int index) {
-        for (int i = index; i < size-1; i++) {
-            elements[i] = elements[i+1];
+    private void shiftLeft(int index, int amount) {
+        System.arraycopy(elements, index+amount, elements, index, size-index-amount);
+        /* Set the shifted elements' duplicates to null. */
+        for (int i = size-amount; i < size; i++) {
+            elements[i] = null;
         }
-        /* Set the last shifted element's duplicate to null. */
-        elements[size-1] = null;
     }
 
     /**
@@ -291,13 +674,21 @@ public class ArrayIndexedCollection extends Collection {
         Object[] newArr = new Object[newLength];
 
         int min = Math.min(original.length, newLength);
-        for (int i = 0; i < min; i++) {
-            newArr[i] = original[i];
-        }
+        System.arraycopy(original, 0, newArr, 0, min);
 
         return newArr;
     }
 
+    /**
+     * Rounds the given number of bytes up to the object alignment.
+     *
+     * @param bytes the number of bytes
+     * @return the number of bytes rounded up to the alignment
+     */
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
     /**
      * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
      * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
@@ -312,4 +703,165 @@ public class ArrayIndexedCollection extends Collection {
         }
     }
 
+    /**
+     * Checks if the <code>position</code> is a legal insertion position, that
+     * is in range of <code>[0, size]</code>. If the position is out of range,
+     * an {@linkplain IndexOutOfBoundsException} is thrown.
+     *
+     * @param position position to be checked
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    private void checkPosition(int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Invalid position: " + position);
+        }
+    }
+
+    /**
+     * A reusable, fail-fast cursor over the elements of this collection in
+     * index order. The cursor reads the internal array of the collection
+     * directly. If the collection is structurally modified other than through
+     * {@linkplain #remove()} of this cursor, the next call of
+     * {@linkplain #next()} or {@linkplain #remove()} throws a
+     * {@linkplain ConcurrentModificationException}, until the cursor is
+     * {@linkplain #reset()}.
+     *
+     * @author Mario Bobic
+     */
+    public class Cursor implements Iterator<Object> {
+
+        /** Index of the next element to be returned. */
+        private int next;
+        /** Index of the last returned element, or -1 if there is none. */
+        private int last = -1;
+        /** The modification count this cursor expects. */
+        private int expectedModCount = modCount;
+
+        /**
+         * Constructs a new Cursor positioned before the first element.
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Moves this cursor before the first element of the collection and
+         * accepts all modifications made so far.
+         */
+        public void reset() {
+            next = 0;
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws ConcurrentModificationException if the collection has been
+         *         modified other than through this cursor
+         */
+        @Override
+        public Object next() {
+            checkForModification();
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return elements[last];
+        }
+
+        /**
+         * Removes the element last returned by {@linkplain #next()} from the
+         * collection. This method may be called only once per call of
+         * {@linkplain #next()}.
+         *
+         * @throws IllegalStateException if {@linkplain #next()} has not been
+         *         called, or this method has already been called after it
+         * @throws ConcurrentModificationException if the collection has been
+         *         modified other than through this cursor
+         */
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            checkForModification();
+
+            ArrayIndexedCollection.this.remove(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Throws a {@linkplain ConcurrentModificationException} if the
+         * collection has been modified other than through this cursor.
+         */
+        private void checkForModification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+    }
+
+    /**
+     * A task that processes a range of elements of an array, splitting the
+     * range in halves and processing them as parallel subtasks while the
+     * range is larger than the threshold.
+     */
+    private static class ForEachTask extends RecursiveAction {
+
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The array of elements. */
+        private final Object[] elements;
+        /** Start of the range, inclusive. */
+        private final int from;
+        /** End of the range, exclusive. */
+        private final int to;
+        /** The largest range that is processed sequentially. */
+        private final int threshold;
+        /** The processor which processes each element. */
+        private final Processor processor;
+
+        /**
+         * Constructs a new ForEachTask for the specified range of elements.
+         *
+         * @param elements the array of elements
+         * @param from start of the range, inclusive
+         * @param to end of the range, exclusive
+         * @param threshold the largest range that is processed sequentially
+         * @param processor the processor which processes each element
+         */
+        public ForEachTask(Object[] elements, int from, int to, int threshold, Processor processor) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.processor = processor;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    processor.process(elements[i]);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new ForEachTask(elements, from, middle, threshold, processor),
+                new ForEachTask(elements, middle, to, threshold, processor)
+            );
+        }
+
+    }
+
 }
@@ -0,0 +1,373 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A circular indexed collection stores objects into a circular array, which
+ * makes it suitable for queue-like and stack-like usage. Unlike the
+ * {@linkplain ArrayIndexedCollection}, which shifts all elements when an
+ * element is inserted to or removed from the beginning, this collection only
+ * moves the index of its first element, so the elements can be added and
+ * removed at both ends with the average complexity of O(1).
+ * <p>
+ * The element at index <code>i</code> is stored at position
+ * <code>(head + i) mod capacity</code> of the internal array. The capacity is
+ * always a power of two, so the position is computed with a bit mask and
+ * {@linkplain #get(int)} is of complexity O(1). If the array gets filled, its
+ * capacity is doubled, up to <code>2^30</code>, the largest power of two that
+ * an array can hold.
+ * <p>
+ * When an element is inserted to or removed from the middle of this
+ * collection, only the elements on the shorter side of the given position are
+ * shifted, so the complexity of such an edit is O(min(index, size-index)),
+ * half of the worst case of the <code>ArrayIndexedCollection</code>.
+ * <p>
+ * This implementation <b>allows</b> duplicate elements <code>null</code>
+ * references.
+ *
+ * @author Mario Bobic
+ */
+public class CircularIndexedCollection extends Collection {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** The largest capacity the array may grow to, a power of two. */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /** The size of this collection (the number of elements it contains). */
+    private int size;
+    /** Position of the first element in the elements array. */
+    private int head;
+    /** The array into which the elements of this collection are stored. */
+    private Object[] elements;
+
+    /**
+     * Constructs an instance of CircularIndexedCollection with the default
+     * capacity of 16.
+     */
+    public CircularIndexedCollection() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance of CircularIndexedCollection with the capacity of
+     * the smallest power of two not less than <code>initialCapacity</code>.
+     *
+     * @param initialCapacity initial capacity of this collection
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is less than 1 or greater than 2^30
+     */
+    public CircularIndexedCollection(int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid initial capacity: " + initialCapacity);
+        }
+        int capacity = 1;
+        while (capacity < initialCapacity) {
+            capacity *= 2;
+        }
+        elements = new Object[capacity];
+    }
+
+    /**
+     * Constructs an instance of CircularIndexedCollection containing the
+     * elements of the specified collection, with the capacity of at least
+     * <code>MAX(other.size(), 16)</code>.
+     *
+     * @param other the collection whose elements are to be placed into this one
+     * @throws NullPointerException if the specified collection is null
+     */
+    public CircularIndexedCollection(Collection other) {
+        this(Math.max(other.size(), DEFAULT_CAPACITY));
+        addAll(other);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given object to the end of this collection. The average
+     * complexity of this method is O(1).
+     *
+     * @param value element to be added to this collection
+     */
+    @Override
+    public void add(Object value) {
+        addLast(value);
+    }
+
+    /**
+     * Adds the given object to the beginning of this collection. The average
+     * complexity of this method is O(1).
+     *
+     * @param value element to be added to this collection
+     */
+    public void addFirst(Object value) {
+        ensureCapacity();
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = value;
+        size++;
+    }
+
+    /**
+     * Adds the given object to the end of this collection. The average
+     * complexity of this method is O(1).
+     *
+     * @param value element to be added to this collection
+     */
+    public void addLast(Object value) {
+        ensureCapacity();
+        elements[position(size)] = value;
+        size++;
+    }
+
+    /**
+     * Removes and returns the first element of this collection. The
+     * complexity of this method is O(1).
+     *
+     * @return the first element of this collection
+     * @throws NoSuchElementException if this collection is empty
+     */
+    public Object removeFirst() {
+        checkNotEmpty();
+        Object value = elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Removes and returns the last element of this collection. The
+     * complexity of this method is O(1).
+     *
+     * @return the last element of this collection
+     * @throws NoSuchElementException if this collection is empty
+     */
+    public Object removeLast() {
+        checkNotEmpty();
+        int last = position(size - 1);
+        Object value = elements[last];
+        elements[last] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Inserts the given value at the given position in this collection. This
+     * method does not overwrite the previously recorded element at the
+     * specified position, but shifts either the elements before the position
+     * to the left or the element at the position and subsequent elements to
+     * the right, whichever is fewer.
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the index
+     * is outside of those boundaries, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param value element to be inserted to this collection
+     * @param position index at which the specified element is to be inserted
+     * @throws IndexOutOfBoundsException if the position index is out of range
+     */
+    public void insert(Object value, int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Invalid position: " + position);
+        }
+
+        ensureCapacity();
+        if (position < size / 2) {
+            head = (head - 1) & (elements.length - 1);
+            for (int i = 0; i < position; i++) {
+                elements[position(i)] = elements[position(i+1)];
+            }
+        } else {
+            for (int i = size; i > position; i--) {
+                elements[position(i)] = elements[position(i-1)];
+            }
+        }
+        elements[position(position)] = value;
+        size++;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the object that is stored in this collection at position
+     * <code>index</code>. The complexity of this method is O(1).
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this collection
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public Object get(int index) {
+        checkIndex(index);
+
+        return elements[position(index)];
+    }
+
+    /**
+     * Searches the collection and returns the index of the first occurrence of
+     * the given value or -1 if the value is not found. If the given value is
+     * not <code>null</code>, the equality of the given value is determined by
+     * {@link Object#equals equals} method. Otherwise, the equality is
+     * determined using the equals operator.
+     *
+     * @param value element to search for
+     * @return the index of the first occurrence of the specified element in
+     *         this collection, or -1 if this it does not contain the element
+     */
+    public int indexOf(Object value) {
+        for (int i = 0; i < size; i++) {
+            Object element = elements[position(i)];
+            if (value == null ? element == null : value.equals(element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        int index = indexOf(value);
+
+        if (index != -1) {
+            remove(index);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the element at the specified position in this collection.
+     * Shifts either the preceding elements to the right or the subsequent
+     * elements to the left, whichever is fewer.
+     *
+     * @param index the index of the element to be removed
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public void remove(int index) {
+        checkIndex(index);
+
+        if (index < size / 2) {
+            for (int i = index; i > 0; i--) {
+                elements[position(i)] = elements[position(i-1)];
+            }
+            elements[head] = null;
+            head = (head + 1) & (elements.length - 1);
+        } else {
+            for (int i = index; i < size-1; i++) {
+                elements[position(i)] = elements[position(i+1)];
+            }
+            elements[position(size-1)] = null;
+        }
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[elements.length];
+        head = 0;
+        size = 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        copyTo(array);
+        return array;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void forEach(Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (int i = 0; i < size; i++) {
+            processor.process(elements[position(i)]);
+        }
+    }
+
+    /**
+     * Returns the position in the elements array of the element with the
+     * specified index.
+     *
+     * @param index index of the element
+     * @return position of the element in the elements array
+     */
+    private int position(int index) {
+        return (head + index) & (elements.length - 1);
+    }
+
+    /**
+     * Doubles the capacity of this collection if the elements array is full.
+     * The elements are copied to the beginning of the new array with at most
+     * two block copies.
+     *
+     * @throws OutOfMemoryError if the capacity is already at its maximum
+     */
+    private void ensureCapacity() {
+        if (size == elements.length) {
+            if (elements.length == MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required capacity too large.");
+            }
+            Object[] newElements = new Object[elements.length * 2];
+            copyTo(newElements);
+            elements = newElements;
+            head = 0;
+        }
+    }
+
+    /**
+     * Copies the elements of this collection in order to the beginning of the
+     * specified array, which must be large enough. The elements before and
+     * after the end of the elements array are copied in two block copies.
+     *
+     * @param array the destination array
+     */
+    private void copyTo(Object[] array) {
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, array, 0, firstPart);
+        System.arraycopy(elements, 0, array, firstPart, size - firstPart);
+    }
+
+    /**
+     * Checks if this collection is empty and throws a
+     * {@linkplain NoSuchElementException} if the test returns true.
+     *
+     * @throws NoSuchElementException if this collection is empty
+     */
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("Collection is empty.");
+        }
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
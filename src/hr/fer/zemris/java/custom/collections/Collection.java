@@ -95,6 +95,100 @@ public class Collection {
     public void forEach(Processor processor) {
     }
 
+    /**
+     * Method calls {@link Processor#process processor.process(...)} for each
+     * element of this collection, possibly from several threads at once. The
+     * given processor must therefore be safe to be called concurrently. The
+     * order in which elements will be sent is undefined, and this method
+     * returns only after all elements have been processed.
+     * <p>
+     * This implementation simply calls the sequential
+     * {@linkplain #forEach(Processor)} method. Collections that can split
+     * their elements into independent parts should override it.
+     *
+     * @param processor the thread-safe processor which processes each element
+     */
+    public void parallelForEach(Processor processor) {
+        forEach(processor);
+    }
+
+    /**
+     * Returns a lazily evaluated {@linkplain Pipeline} of the elements of this
+     * collection that pass the test of the given tester. The elements are
+     * tested only when a terminal operation of the pipeline is called.
+     *
+     * @param tester the tester which decides which elements are kept
+     * @return a new pipeline with a filter stage
+     * @throws IllegalArgumentException if the given tester is null
+     */
+    public Pipeline filter(Tester tester) {
+        return new Pipeline(this).filter(tester);
+    }
+
+    /**
+     * Returns a lazily evaluated {@linkplain Pipeline} of the elements of this
+     * collection transformed by the given transformer. The elements are
+     * transformed only when a terminal operation of the pipeline is called.
+     *
+     * @param transformer the transformer which transforms each element
+     * @return a new pipeline with a map stage
+     * @throws IllegalArgumentException if the given transformer is null
+     */
+    public Pipeline map(Transformer transformer) {
+        return new Pipeline(this).map(transformer);
+    }
+
+    /**
+     * Combines the elements of this collection into one result, as described
+     * in {@linkplain Pipeline#reduce(Object, Reducer)}.
+     *
+     * @param identity the initial result
+     * @param reducer the reducer which combines the result with each element
+     * @return the result of the reduction, or the identity if this collection
+     *         is empty
+     * @throws IllegalArgumentException if the given reducer is null
+     */
+    public Object reduce(Object identity, Reducer reducer) {
+        return new Pipeline(this).reduce(identity, reducer);
+    }
+
+    /**
+     * Returns true if any element of this collection passes the test of the
+     * given tester, as described in {@linkplain Pipeline#anyMatch(Tester)}.
+     *
+     * @param tester the tester which is applied to the elements
+     * @return true if any element passes the test, false otherwise
+     * @throws IllegalArgumentException if the given tester is null
+     */
+    public boolean anyMatch(Tester tester) {
+        return new Pipeline(this).anyMatch(tester);
+    }
+
+    /**
+     * Passes the elements of this collection to the sink of a
+     * {@linkplain Pipeline} until the sink asks to stop.
+     * <p>
+     * This implementation calls the {@linkplain #forEach(Processor)} method,
+     * which cannot be stopped, so the elements after the sink asks to stop are
+     * skipped. Collections that can traverse their elements directly should
+     * override it.
+     *
+     * @param sink the sink which accepts the elements
+     */
+    void traverse(final Pipeline.Sink sink) {
+        forEach(new Processor() {
+            /** Whether the sink still accepts elements. */
+            private boolean running = true;
+
+            @Override
+            public void process(Object value) {
+                if (running) {
+                    running = sink.accept(value);
+                }
+            }
+        });
+    }
+
     /**
      * Adds all of the elements in the specified collection to this collection.
      * This other collection remains unchanged.
@@ -0,0 +1,148 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * A demonstration class that measures the performance of the collections of
+ * this package and prints out the results.
+ * <p>
+ * The membership benchmark fills an {@linkplain ArrayIndexedCollection} and a
+ * {@linkplain LinkedHashIndexedCollection} with the same number of distinct
+ * strings, and then measures the average time of a {@link Collection#contains
+ * contains} call for an element that is present and one that is not. The
+ * linear scan of the array indexed collection can only compete while the
+ * collection holds very few elements, as no hash code has to be computed. The
+ * smallest size at which the hash indexed collection is faster is printed out
+ * as the crossover point, which is typically between 2 and 8 elements.
+ * <p>
+ * The bulk load benchmark copies a collection of ten million elements into an
+ * empty {@linkplain ArrayIndexedCollection}, once by adding the elements one
+ * by one and once by the {@link ArrayIndexedCollection#addAll(Collection)
+ * addAll} method, which expands the array only once and copies all elements
+ * in a single block copy.
+ * <p>
+ * The measured times are only indicative, as no care is taken of the
+ * just-in-time compiler other than running each measurement several times
+ * before it is timed.
+ *
+ * @author Mario Bobic
+ */
+public class CollectionBenchmark {
+
+    /** Number of lookups timed for each size. */
+    private static final int LOOKUPS = 200_000;
+    /** Number of elements copied by the bulk load benchmark. */
+    private static final int BULK_SIZE = 10_000_000;
+    /** Number of untimed rounds before each timed round. */
+    private static final int WARMUP = 3;
+
+    /** Sink for results, so that the lookups are not optimized away. */
+    private static int sink;
+
+    /**
+     * Program entry point.
+     *
+     * @param args not used in this benchmark
+     */
+    public static void main(String[] args) {
+        System.out.println("Membership: nanoseconds per contains() call");
+        System.out.printf("%8s %12s %12s%n", "size", "array", "hash");
+
+        int crossover = -1;
+        for (int size = 1; size <= 4096; size *= 2) {
+            String[] values = new String[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = "shape" + i;
+            }
+
+            Collection array = new ArrayIndexedCollection();
+            Collection hash = new LinkedHashIndexedCollection();
+            for (String value : values) {
+                array.add(value);
+                hash.add(value);
+            }
+
+            double arrayTime = timeContains(array, values);
+            double hashTime = timeContains(hash, values);
+            System.out.printf("%8d %12.1f %12.1f%n", size, arrayTime, hashTime);
+
+            if (crossover == -1 && hashTime < arrayTime) {
+                crossover = size;
+            }
+        }
+
+        System.out.println("Crossover at size: " + crossover);
+
+        System.out.println();
+        benchmarkBulkLoad();
+
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Measures and prints out the time of copying a large collection into an
+     * empty one element by element and with a bulk addition.
+     */
+    private static void benchmarkBulkLoad() {
+        Object element = new Object();
+        ArrayIndexedCollection source = new ArrayIndexedCollection(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            source.add(element);
+        }
+
+        System.out.println("Bulk load of " + BULK_SIZE + " elements: milliseconds");
+        long oneByOne = 0;
+        long bulk = 0;
+        for (int round = 0; round <= WARMUP; round++) {
+            final ArrayIndexedCollection target1 = new ArrayIndexedCollection();
+            long start = System.nanoTime();
+            source.forEach(new Processor() {
+                @Override
+                public void process(Object value) {
+                    target1.add(value);
+                }
+            });
+            oneByOne = System.nanoTime() - start;
+
+            ArrayIndexedCollection target2 = new ArrayIndexedCollection();
+            start = System.nanoTime();
+            target2.addAll(source);
+            bulk = System.nanoTime() - start;
+
+            sink += target1.size() + target2.size();
+        }
+
+        System.out.printf("%12s %12d%n", "one by one", oneByOne / 1_000_000);
+        System.out.printf("%12s %12d%n", "addAll", bulk / 1_000_000);
+    }
+
+    /**
+     * Returns the average time in nanoseconds of a <tt>contains</tt> call on
+     * the specified collection, looking up present and absent values in turns.
+     *
+     * @param collection the collection to be measured
+     * @param values values that the collection contains
+     * @return the average time of a call in nanoseconds
+     */
+    private static double timeContains(Collection collection, String[] values) {
+        String absent = "absent";
+        long time = 0;
+
+        for (int round = 0; round <= WARMUP; round++) {
+            int found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                /* New string instances, so that equals is really called. */
+                Object value = (i & 1) == 0 ? new String(values[i % values.length]) : absent;
+                if (collection.contains(value)) {
+                    found++;
+                }
+            }
+            time = System.nanoTime() - start;
+            sink += found;
+        }
+
+        return (double) time / LOOKUPS;
+    }
+
+}
@@ -0,0 +1,473 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A concurrent indexed collection is a thread-safe variant of the
+ * {@linkplain ArrayIndexedCollection}, meant for several threads that append
+ * elements into one collection while others read it.
+ * <p>
+ * Elements are stored in a sequence of chunks, where the first chunk holds 16
+ * elements and each next chunk twice as many as the previous one. The chunks
+ * are never copied or moved, so there is no array expansion that all threads
+ * would have to wait for, and a missing chunk is allocated by the first thread
+ * that needs it, using an atomic compare-and-set.
+ * <p>
+ * An {@linkplain #add(Object) append} makes sure that the chunk of the next
+ * free index exists, reserves the index with an atomic compare-and-set and
+ * then writes the element into its own slot, so appending threads never wait
+ * for each other to write. An element becomes visible only when all elements
+ * with lower indexes are visible, so the {@linkplain #size()} of this
+ * collection never covers a slot that is not yet written. As the chunk is
+ * allocated before the index is reserved, a failed allocation leaves no
+ * reserved index behind that later appends would wait for.
+ * <p>
+ * Operations that shift elements, such as {@linkplain #insert(Object, int)
+ * insert} and {@linkplain #remove(int) remove}, hold an exclusive lock, while
+ * appends share a non-exclusive lock among themselves. Reading operations do
+ * not lock at all in the common case: they read optimistically and repeat the
+ * read under a shared lock only if elements were shifted in the meantime. The
+ * {@linkplain #forEach(Processor)} method processes a snapshot copy of the
+ * elements, so the processor may run for a long time, or even modify this
+ * collection, without blocking other threads.
+ * <p>
+ * This implementation <b>allows</b> duplicate elements <code>null</code>
+ * references.
+ *
+ * @author Mario Bobic
+ */
+public class ConcurrentIndexedCollection extends Collection {
+
+    /** The binary logarithm of the size of the first chunk. */
+    private static final int FIRST_CHUNK_SHIFT = 4;
+    /** The size of the first chunk. */
+    private static final int FIRST_CHUNK = 1 << FIRST_CHUNK_SHIFT;
+    /**
+     * Maximum number of chunks. The next chunk would hold <code>2^31</code>
+     * elements, which is more than an array can hold.
+     */
+    private static final int MAX_CHUNKS = 31 - FIRST_CHUNK_SHIFT;
+    /** Maximum number of elements, which fill all of the chunks. */
+    private static final int MAX_CAPACITY = FIRST_CHUNK * ((1 << MAX_CHUNKS) - 1);
+
+    /** Lock shared by appends and held exclusively by shifting operations. */
+    private final StampedLock lock = new StampedLock();
+    /** The number of reserved slots, some of which may not be written yet. */
+    private final AtomicInteger reserved = new AtomicInteger();
+    /** The number of written and visible elements, the size. */
+    private final AtomicInteger published = new AtomicInteger();
+    /** The chunks into which the elements of this collection are stored. */
+    private volatile AtomicReferenceArray<Object[]> chunks =
+            new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    /**
+     * Constructs an empty instance of ConcurrentIndexedCollection.
+     */
+    public ConcurrentIndexedCollection() {
+    }
+
+    /**
+     * Constructs an instance of ConcurrentIndexedCollection containing the
+     * elements of the specified collection.
+     *
+     * @param other the collection whose elements are to be placed into this one
+     * @throws NullPointerException if the specified collection is null
+     */
+    public ConcurrentIndexedCollection(Collection other) {
+        addAll(other);
+    }
+
+    @Override
+    public int size() {
+        return published.get();
+    }
+
+    /**
+     * Adds the given object to the end of this collection. This method may be
+     * called by many threads at once, which do not block each other. It only
+     * waits for operations that shift elements.
+     *
+     * @param value element to be added to this collection
+     * @throws OutOfMemoryError if this collection already holds
+     *         <code>2^31-16</code> elements, which fill all of its chunks
+     */
+    @Override
+    public void add(Object value) {
+        long stamp = lock.readLock();
+        try {
+            /*
+             * Allocate the chunk before reserving the slot, so that a failed
+             * allocation never leaves a reserved slot that is not published.
+             */
+            int index;
+            Object[] chunk;
+            do {
+                index = reserved.get();
+                chunk = chunkFor(chunks, index, true);
+            } while (!reserved.compareAndSet(index, index + 1));
+            chunk[offsetOf(index)] = value;
+
+            /* Publish in order, after all lower indexes are published. */
+            while (!published.compareAndSet(index, index + 1)) {
+                Thread.yield();
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Inserts the given value at the given position in this collection,
+     * shifting the element currently at that position (if any) and any
+     * subsequent elements to the right. This method holds an exclusive lock
+     * while shifting.
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the index
+     * is outside of those boundaries, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param value element to be inserted to this collection
+     * @param position index at which the specified element is to be inserted
+     * @throws IndexOutOfBoundsException if the position index is out of range
+     * @throws OutOfMemoryError if this collection already holds
+     *         <code>2^31-16</code> elements, which fill all of its chunks
+     */
+    public void insert(Object value, int position) {
+        long stamp = lock.writeLock();
+        try {
+            int size = published.get();
+            if (position < 0 || position > size) {
+                throw new IndexOutOfBoundsException("Invalid position: " + position);
+            }
+
+            AtomicReferenceArray<Object[]> chunks = this.chunks;
+            chunkFor(chunks, size, true);
+            for (int i = size; i > position; i--) {
+                set(chunks, i, get(chunks, i-1));
+            }
+            set(chunks, position, value);
+
+            reserved.set(size + 1);
+            published.set(size + 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the object that is stored in this collection at position
+     * <code>index</code>. This method does not lock unless elements are
+     * shifted by another thread while it reads.
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this collection
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public Object get(int index) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int size = published.get();
+            Object value = (index >= 0 && index < size) ? get(chunks, index) : null;
+            if (lock.validate(stamp)) {
+                checkIndex(index, size);
+                return value;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            checkIndex(index, published.get());
+            return get(chunks, index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Searches the collection and returns the index of the first occurrence of
+     * the given value or -1 if the value is not found. If the given value is
+     * not <code>null</code>, the equality of the given value is determined by
+     * {@link Object#equals equals} method. Otherwise, the equality is
+     * determined using the equals operator.
+     *
+     * @param value element to search for
+     * @return the index of the first occurrence of the specified element in
+     *         this collection, or -1 if this it does not contain the element
+     */
+    public int indexOf(Object value) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int index = indexOf(value, published.get());
+            if (lock.validate(stamp)) {
+                return index;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return indexOf(value, published.get());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        long stamp = lock.writeLock();
+        try {
+            int index = indexOf(value, published.get());
+            if (index == -1) {
+                return false;
+            }
+            removeLocked(index);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the element at the specified position in this collection,
+     * shifting any subsequent elements to the left. This method holds an
+     * exclusive lock while shifting.
+     *
+     * @param index the index of the element to be removed
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public void remove(int index) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, published.get());
+            removeLocked(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+            reserved.set(0);
+            published.set(0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The returned array is a consistent snapshot of this collection.
+     */
+    @Override
+    public Object[] toArray() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Object[] snapshot = copyElements();
+            if (lock.validate(stamp)) {
+                return snapshot;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return copyElements();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The processor is called for each element of a consistent snapshot of
+     * this collection, taken when this method is called. No lock is held while
+     * the processor runs, so other threads are not blocked, and elements
+     * added or removed in the meantime are not reflected.
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void forEach(Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (Object element : toArray()) {
+            processor.process(element);
+        }
+    }
+
+    /**
+     * Removes the element at the specified valid index. The caller must hold
+     * the exclusive lock.
+     *
+     * @param index the index of the element to be removed
+     */
+    private void removeLocked(int index) {
+        AtomicReferenceArray<Object[]> chunks = this.chunks;
+        int size = published.get();
+
+        for (int i = index; i < size-1; i++) {
+            set(chunks, i, get(chunks, i+1));
+        }
+        set(chunks, size-1, null);
+
+        reserved.set(size - 1);
+        published.set(size - 1);
+    }
+
+    /**
+     * Searches the first <code>size</code> elements for the given value
+     * without any locking.
+     *
+     * @param value element to search for
+     * @param size the number of elements to search
+     * @return the index of the first occurrence of the value, or -1
+     */
+    private int indexOf(Object value, int size) {
+        AtomicReferenceArray<Object[]> chunks = this.chunks;
+
+        for (int k = 0, start = 0; start < size; k++) {
+            Object[] chunk = chunks.get(k);
+            if (chunk == null) {
+                break;
+            }
+            int end = Math.min(chunk.length, size - start);
+            for (int i = 0; i < end; i++) {
+                Object element = chunk[i];
+                if (value == null ? element == null : value.equals(element)) {
+                    return start + i;
+                }
+            }
+            start += chunk.length;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Copies the visible elements into a new array without any locking,
+     * using one block copy per chunk.
+     *
+     * @return an array of the visible elements
+     */
+    private Object[] copyElements() {
+        AtomicReferenceArray<Object[]> chunks = this.chunks;
+        Object[] array = new Object[published.get()];
+
+        for (int k = 0, start = 0; start < array.length; k++) {
+            Object[] chunk = chunks.get(k);
+            if (chunk == null) {
+                break;
+            }
+            int length = Math.min(chunk.length, array.length - start);
+            System.arraycopy(chunk, 0, array, start, length);
+            start += chunk.length;
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns the element with the specified index from the given chunks.
+     *
+     * @param chunks the chunks of elements
+     * @param index index of the element
+     * @return the element with the specified index
+     */
+    private static Object get(AtomicReferenceArray<Object[]> chunks, int index) {
+        Object[] chunk = chunkFor(chunks, index, false);
+        return (chunk == null) ? null : chunk[offsetOf(index)];
+    }
+
+    /**
+     * Sets the element with the specified index in the given chunks. The
+     * chunk of the index must exist.
+     *
+     * @param chunks the chunks of elements
+     * @param index index of the element
+     * @param value the element to be set
+     */
+    private static void set(AtomicReferenceArray<Object[]> chunks, int index, Object value) {
+        chunkFor(chunks, index, false)[offsetOf(index)] = value;
+    }
+
+    /**
+     * Returns the chunk that holds the element with the specified index. If
+     * the chunk does not exist and <code>create</code> is true, the chunk is
+     * created, and if another thread creates it at the same time, the chunk
+     * of that thread is used.
+     *
+     * @param chunks the chunks of elements
+     * @param index index of the element
+     * @param create true if a missing chunk is to be created
+     * @return the chunk that holds the element, or <code>null</code>
+     * @throws OutOfMemoryError if <code>create</code> is true and the index
+     *         is beyond the last chunk
+     */
+    private static Object[] chunkFor(AtomicReferenceArray<Object[]> chunks, int index, boolean create) {
+        if (create && index >= MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required capacity too large.");
+        }
+        int k = chunkIndexOf(index);
+        Object[] chunk = chunks.get(k);
+        if (chunk == null && create) {
+            chunks.compareAndSet(k, null, new Object[FIRST_CHUNK << k]);
+            chunk = chunks.get(k);
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns the index of the chunk that holds the element with the
+     * specified index. Chunk <code>k</code> holds the elements from
+     * <code>16*(2^k-1)</code> to <code>16*(2^(k+1)-1)-1</code>.
+     *
+     * @param index index of the element
+     * @return index of the chunk that holds the element
+     */
+    private static int chunkIndexOf(int index) {
+        long position = (long) index + FIRST_CHUNK;
+        return 63 - Long.numberOfLeadingZeros(position) - FIRST_CHUNK_SHIFT;
+    }
+
+    /**
+     * Returns the offset of the element with the specified index within its
+     * chunk.
+     *
+     * @param index index of the element
+     * @return offset of the element within its chunk
+     */
+    private static int offsetOf(int index) {
+        long position = (long) index + FIRST_CHUNK;
+        return (int) (position - Long.highestOneBit(position));
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @param size the size of this collection
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
@@ -0,0 +1,626 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * A linked hash indexed collection stores objects in the order in which they
+ * were added and additionally indexes them in a hash table, so that the
+ * {@linkplain #contains(Object)}, {@linkplain #indexOf(Object)} and
+ * {@linkplain #remove(Object)} methods do not have to scan all elements like
+ * they do in the {@linkplain ArrayIndexedCollection}.
+ * <p>
+ * Elements are kept in an array in insertion order, and the hash table is an
+ * open addressing table with linear probing that holds indexes into that
+ * array. The hash code of each element is cached next to the element, so
+ * elements are compared with {@link Object#equals equals} only if their hash
+ * codes match, and the table can be resized without calling
+ * {@link Object#hashCode hashCode} again. The table is never filled more than
+ * half, so the average complexity of lookups is O(1).
+ * <p>
+ * Removing an element only marks its place in the array as removed, which
+ * is O(log n) on average. The array is compacted when more than half of its
+ * used places are marked as removed. A binary indexed tree counts the places
+ * which are not removed, so the index of an element is the number of such
+ * places before its own, and the element at an index is found by descending
+ * the tree. The {@linkplain #indexOf(Object)}, {@linkplain #get(int)} and
+ * {@linkplain #remove(int)} methods are therefore O(log n) even when they are
+ * interleaved with removals, and O(1) while no place is marked as removed.
+ * <p>
+ * Duplicate elements are allowed. The hash table holds the place of the first
+ * occurrence of each distinct element, and the places of its duplicates are
+ * linked to it in insertion order, so an element with duplicates is looked
+ * up as fast as a distinct one and its first occurrence is the one which is
+ * found and removed. The <code>null</code> reference is allowed.
+ *
+ * @author Mario Bobic
+ */
+public class LinkedHashIndexedCollection extends Collection {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Marks an empty slot of the hash table. */
+    private static final int EMPTY = -1;
+    /** Stands in for the <code>null</code> element in the elements array. */
+    private static final Object NULL = new Object();
+    /** Marks a removed place in the elements array. */
+    private static final Object REMOVED = new Object();
+
+    /** The size of this collection (the number of elements it contains). */
+    private int size;
+    /** The number of used places in the elements array, including removed. */
+    private int used;
+    /** The array into which the elements are stored in insertion order. */
+    private Object[] elements;
+    /** Cached hash codes of the elements, by the element index. */
+    private int[] hashes;
+    /**
+     * The hash table of the places of the first occurrences of the distinct
+     * elements, or {@link #EMPTY}.
+     */
+    private int[] table;
+    /** Place of the next occurrence of each element, or {@link #EMPTY}. */
+    private int[] next;
+    /**
+     * Place of the previous occurrence of each element, or of the last
+     * occurrence for the first one.
+     */
+    private int[] previous;
+    /**
+     * Binary indexed tree over the places of the elements array, counting the
+     * places which are not marked as removed. Node <tt>i</tt> counts the
+     * places from <tt>i - (i &amp; -i)</tt> inclusive to <tt>i</tt> exclusive.
+     */
+    private int[] live;
+
+    /**
+     * Constructs an instance of LinkedHashIndexedCollection with the default
+     * capacity of 16.
+     */
+    public LinkedHashIndexedCollection() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance of LinkedHashIndexedCollection with the capacity
+     * set to <code>initialCapacity</code>.
+     *
+     * @param initialCapacity initial capacity of this collection
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is less than 1
+     */
+    public LinkedHashIndexedCollection(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must not be less than 1.");
+        }
+        elements = new Object[initialCapacity];
+        hashes = new int[initialCapacity];
+        next = new int[initialCapacity];
+        previous = new int[initialCapacity];
+        table = newTable(tableSizeFor(initialCapacity));
+        live = new int[initialCapacity + 1];
+    }
+
+    /**
+     * Constructs an instance of LinkedHashIndexedCollection containing the
+     * elements of the specified collection, with the capacity of
+     * <code>MAX(other.size(), 16)</code>.
+     *
+     * @param other the collection whose elements are to be placed into this one
+     * @throws NullPointerException if the specified collection is null
+     */
+    public LinkedHashIndexedCollection(Collection other) {
+        this(Math.max(other.size(), DEFAULT_CAPACITY));
+        addAll(other);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given object to the end of this collection. The average
+     * complexity of this method is O(log n).
+     *
+     * @param value element to be added to this collection
+     */
+    @Override
+    public void add(Object value) {
+        Object key = maskNull(value);
+        int hash = hash(key);
+        ensureCapacity();
+
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            int first = table[slot];
+            int last = previous[first];
+            next[last] = used;
+            previous[used] = last;
+            previous[first] = used;
+        } else {
+            table[~slot] = used;
+            previous[used] = used;
+        }
+        next[used] = EMPTY;
+
+        elements[used] = key;
+        hashes[used] = hash;
+        count(used, 1);
+        used++;
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The average complexity of this method is O(1).
+     */
+    @Override
+    public boolean contains(Object value) {
+        Object key = maskNull(value);
+        return find(key, hash(key)) >= 0;
+    }
+
+    /**
+     * Returns the object that is stored in this collection at position
+     * <code>index</code>, where positions are counted in insertion order.
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}. The
+     * complexity of this method is O(log n).
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this collection
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public Object get(int index) {
+        checkIndex(index);
+        return unmaskNull(elements[placeOf(index)]);
+    }
+
+    /**
+     * Returns the index of the given value in this collection, where positions
+     * are counted in insertion order, or -1 if the value is not found. The
+     * equality of the given value is determined by {@link Object#equals
+     * equals} method. If there are duplicates, the index of the first one is
+     * returned. The average complexity of this method is O(log n).
+     *
+     * @param value element to search for
+     * @return the index of the specified element in this collection, or -1 if
+     *         this collection does not contain the element
+     */
+    public int indexOf(Object value) {
+        Object key = maskNull(value);
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return -1;
+        }
+        return indexOfPlace(table[slot]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>If there are duplicates, the first one is removed. The average
+     * complexity of this method is O(log n).
+     */
+    @Override
+    public boolean remove(Object value) {
+        Object key = maskNull(value);
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        removePlace(slot, table[slot]);
+        return true;
+    }
+
+    /**
+     * Removes the element at the specified position in this collection, where
+     * positions are counted in insertion order. The average complexity of this
+     * method is O(log n).
+     *
+     * @param index the index of the element to be removed
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int place = placeOf(index);
+        removePlace(find(elements[place], hashes[place]), place);
+    }
+
+    /**
+     * Removes the element at the specified place of the elements array,
+     * unlinking it from the other occurrences of the element and marking its
+     * place as removed.
+     *
+     * @param slot the slot of the first occurrence of the element
+     * @param place the place of the element to be removed
+     */
+    private void removePlace(int slot, int place) {
+        int first = table[slot];
+        int following = next[place];
+        if (place == first) {
+            if (following == EMPTY) {
+                deleteSlot(slot);
+            } else {
+                table[slot] = following;
+                previous[following] = previous[place];
+            }
+        } else {
+            int preceding = previous[place];
+            next[preceding] = following;
+            previous[following == EMPTY ? first : following] = preceding;
+        }
+
+        elements[place] = REMOVED;
+        count(place, -1);
+        size--;
+
+        while (used > 0 && elements[used-1] == REMOVED) {
+            elements[--used] = null;
+        }
+        if (used - size > used / 2) {
+            compact();
+        }
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[elements.length];
+        hashes = new int[hashes.length];
+        next = new int[next.length];
+        previous = new int[previous.length];
+        table = newTable(table.length);
+        live = new int[live.length];
+        size = 0;
+        used = 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (elements[i] != REMOVED) {
+                array[n++] = unmaskNull(elements[i]);
+            }
+        }
+
+        return array;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Elements are sent in insertion order.
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void forEach(Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (int i = 0; i < used; i++) {
+            if (elements[i] != REMOVED) {
+                processor.process(unmaskNull(elements[i]));
+            }
+        }
+    }
+
+    /**
+     * Searches the hash table for the given key with the given hash code. If
+     * the key is found, returns its slot in the table, which holds the place
+     * of its first occurrence. Otherwise, returns the bitwise complement of
+     * the empty slot where the key should be placed.
+     *
+     * @param key the masked key to search for
+     * @param hash the hash code of the key
+     * @return the slot of the key, or the complement of the insertion slot
+     */
+    private int find(Object key, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+
+        while (true) {
+            int index = table[slot];
+            if (index == EMPTY) {
+                return ~slot;
+            }
+            if (hashes[index] == hash && key.equals(elements[index])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the index of the element at the specified place of the elements
+     * array, which is the number of places before it which are not marked as
+     * removed.
+     *
+     * @param place the place of the element
+     * @return the index of the element
+     */
+    private int indexOfPlace(int place) {
+        if (used == size) {
+            return place;
+        }
+        int index = 0;
+        for (int i = place; i > 0; i -= i & -i) {
+            index += live[i];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the place in the elements array of the element at the specified
+     * index, by descending the binary indexed tree.
+     *
+     * @param index the index of the element
+     * @return the place of the element
+     */
+    private int placeOf(int index) {
+        if (used == size) {
+            return index;
+        }
+        int place = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(live.length - 1); step > 0; step >>= 1) {
+            int next = place + step;
+            if (next < live.length && live[next] <= remaining) {
+                place = next;
+                remaining -= live[next];
+            }
+        }
+        return place;
+    }
+
+    /**
+     * Adds the specified number to the count of the specified place in the
+     * binary indexed tree.
+     *
+     * @param place the place of the elements array
+     * @param delta the number to be added
+     */
+    private void count(int place, int delta) {
+        for (int i = place + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    /**
+     * Rebuilds the binary indexed tree for the current capacity from the
+     * places of the elements array, in linear time.
+     */
+    private void recount() {
+        live = new int[elements.length + 1];
+        for (int i = 1; i < live.length; i++) {
+            if (i <= used && elements[i-1] != REMOVED) {
+                live[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < live.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    /**
+     * Empties the specified slot of the hash table and moves the following
+     * entries of the same cluster back, so that every key stays reachable from
+     * its home slot without leaving deleted markers in the table.
+     *
+     * @param slot the slot to be emptied
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int gap = slot;
+        int i = slot;
+
+        while (true) {
+            i = (i + 1) & mask;
+            int index = table[i];
+            if (index == EMPTY) {
+                break;
+            }
+            int home = hashes[index] & mask;
+            /* Move the entry if its home slot is not between the gap and i. */
+            boolean stays = (gap <= i) ? (gap < home && home <= i) : (gap < home || home <= i);
+            if (!stays) {
+                table[gap] = index;
+                gap = i;
+            }
+        }
+
+        table[gap] = EMPTY;
+    }
+
+    /**
+     * Makes room for one more element. If the elements array is full, it is
+     * compacted if more than a quarter of it is marked as removed, or its
+     * capacity is doubled otherwise. The hash table is doubled whenever it
+     * would become more than half full.
+     */
+    private void ensureCapacity() {
+        if (used == elements.length) {
+            if (used - size > used / 4) {
+                compact();
+            } else {
+                int capacity = elements.length * 2;
+                elements = copyOfArray(elements, capacity);
+                hashes = copyOfArray(hashes, capacity);
+                next = copyOfArray(next, capacity);
+                previous = copyOfArray(previous, capacity);
+                recount();
+            }
+        }
+
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    /**
+     * Moves all elements to the beginning of the elements array, removing the
+     * places marked as removed, and rebuilds the hash table and the binary
+     * indexed tree since the places of the elements have changed.
+     */
+    private void compact() {
+        int[] moved = new int[used];
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (elements[i] != REMOVED) {
+                moved[i] = n++;
+            }
+        }
+
+        for (int i = 0; i < used; i++) {
+            if (elements[i] != REMOVED) {
+                int place = moved[i];
+                elements[place] = elements[i];
+                hashes[place] = hashes[i];
+                next[place] = next[i] == EMPTY ? EMPTY : moved[next[i]];
+                previous[place] = moved[previous[i]];
+            }
+        }
+        for (int i = n; i < used; i++) {
+            elements[i] = null;
+        }
+        used = n;
+
+        rehash(table.length);
+        recount();
+    }
+
+    /**
+     * Replaces the hash table with a new empty table of the given size and
+     * inserts places of the first occurrences of all elements using their
+     * cached hash codes. An element is a first occurrence if the place before
+     * it, which is the last occurrence for the first one, does not link to it.
+     *
+     * @param tableSize size of the new table, a power of two
+     */
+    private void rehash(int tableSize) {
+        table = newTable(tableSize);
+        int mask = tableSize - 1;
+
+        for (int i = 0; i < used; i++) {
+            if (elements[i] == REMOVED || next[previous[i]] == i) {
+                continue;
+            }
+            int slot = hashes[i] & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+        }
+    }
+
+    /**
+     * Creates a new hash table of the given size with all slots empty.
+     *
+     * @param tableSize size of the table
+     * @return the new hash table
+     */
+    private static int[] newTable(int tableSize) {
+        int[] newTable = new int[tableSize];
+        for (int i = 0; i < tableSize; i++) {
+            newTable[i] = EMPTY;
+        }
+        return newTable;
+    }
+
+    /**
+     * Returns the smallest power of two that is at least twice the given
+     * capacity, so that the table is at most half full.
+     *
+     * @param capacity the number of elements
+     * @return the size of the hash table
+     */
+    private static int tableSizeFor(int capacity) {
+        int tableSize = 2;
+        while (tableSize < capacity * 2) {
+            tableSize *= 2;
+        }
+        return tableSize;
+    }
+
+    /**
+     * Returns the hash code of the given masked key, scrambled by a
+     * multiplication and with the higher bits spread to the lower ones, as
+     * only the lower bits choose the slot. Keys with consecutive hash codes,
+     * such as small integers, would otherwise form one long cluster of slots.
+     *
+     * @param key the masked key
+     * @return the spread hash code of the key
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the {@link #NULL} placeholder if the value is <code>null</code>,
+     * or the value itself otherwise.
+     *
+     * @param value the value to be masked
+     * @return the masked value
+     */
+    private static Object maskNull(Object value) {
+        return (value == null) ? NULL : value;
+    }
+
+    /**
+     * Returns <code>null</code> if the key is the {@link #NULL} placeholder,
+     * or the key itself otherwise.
+     *
+     * @param key the key to be unmasked
+     * @return the unmasked key
+     */
+    private static Object unmaskNull(Object key) {
+        return (key == NULL) ? null : key;
+    }
+
+    /**
+     * Copies the specified array, truncating or padding with nulls (if
+     * necessary) so the copy has the specified length.
+     *
+     * @param original the array to be copied
+     * @param newLength the length of the copy to be returned
+     * @return a copy of the original array
+     */
+    private static Object[] copyOfArray(Object[] original, int newLength) {
+        Object[] newArr = new Object[newLength];
+        System.arraycopy(original, 0, newArr, 0, Math.min(original.length, newLength));
+        return newArr;
+    }
+
+    /**
+     * Copies the specified array, truncating or padding with zeros (if
+     * necessary) so the copy has the specified length.
+     *
+     * @param original the array to be copied
+     * @param newLength the length of the copy to be returned
+     * @return a copy of the original array
+     */
+    private static int[] copyOfArray(int[] original, int newLength) {
+        int[] newArr = new int[newLength];
+        System.arraycopy(original, 0, newArr, 0, Math.min(original.length, newLength));
+        return newArr;
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
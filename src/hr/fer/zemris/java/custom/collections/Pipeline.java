@@ -0,0 +1,303 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * A pipeline is a lazily evaluated sequence of operations over the elements of
+ * a {@linkplain Collection}. The intermediate operations,
+ * {@linkplain #filter(Tester)} and {@linkplain #map(Transformer)}, only return
+ * a new pipeline with one more stage, and nothing is computed until one of the
+ * terminal operations, {@linkplain #forEach(Processor)},
+ * {@linkplain #count()}, {@linkplain #anyMatch(Tester)} or
+ * {@linkplain #reduce(Object, Reducer)}, is called.
+ * <p>
+ * The terminal operation fuses all stages into a single chain of sinks, each
+ * of which passes the element it accepts directly to the next one. The
+ * elements of the source collection are therefore processed in a single pass,
+ * and no intermediate collection is ever created. A stage may stop the
+ * traversal, which {@linkplain #anyMatch(Tester)} does as soon as it finds a
+ * matching element. Collections that can traverse their elements directly,
+ * such as the {@linkplain ArrayIndexedCollection}, stop right away, while the
+ * others only skip the remaining elements.
+ * <p>
+ * A pipeline is immutable, so a pipeline may be extended in several ways and
+ * evaluated any number of times. Each evaluation reads the current elements of
+ * the source collection.
+ *
+ * @author Mario Bobic
+ */
+public class Pipeline {
+
+    /** The collection whose elements enter this pipeline. */
+    private final Collection source;
+    /** The previous stage of this pipeline, or <code>null</code> for the source. */
+    private final Pipeline previous;
+    /** The tester of a filter stage, or <code>null</code>. */
+    private final Tester tester;
+    /** The transformer of a map stage, or <code>null</code>. */
+    private final Transformer transformer;
+
+    /**
+     * Constructs a new pipeline without any stages, over the elements of the
+     * specified collection.
+     *
+     * @param source the collection whose elements enter this pipeline
+     * @throws IllegalArgumentException if the source collection is null
+     */
+    public Pipeline(Collection source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source collection must not be null.");
+        }
+        this.source = source;
+        this.previous = null;
+        this.tester = null;
+        this.transformer = null;
+    }
+
+    /**
+     * Constructs a new pipeline which extends the <code>previous</code> one by
+     * a filter or a map stage.
+     *
+     * @param previous the previous stage
+     * @param tester the tester of a filter stage, or <code>null</code>
+     * @param transformer the transformer of a map stage, or <code>null</code>
+     */
+    private Pipeline(Pipeline previous, Tester tester, Transformer transformer) {
+        this.source = previous.source;
+        this.previous = previous;
+        this.tester = tester;
+        this.transformer = transformer;
+    }
+
+    /**
+     * Returns a new pipeline consisting of the elements of this pipeline that
+     * pass the test of the given tester. This is an intermediate operation.
+     *
+     * @param tester the tester which decides which elements are kept
+     * @return a new pipeline with a filter stage
+     * @throws IllegalArgumentException if the given tester is null
+     */
+    public Pipeline filter(Tester tester) {
+        if (tester == null) {
+            throw new IllegalArgumentException("Tester must not be null.");
+        }
+        return new Pipeline(this, tester, null);
+    }
+
+    /**
+     * Returns a new pipeline consisting of the elements of this pipeline
+     * transformed by the given transformer. This is an intermediate operation.
+     *
+     * @param transformer the transformer which transforms each element
+     * @return a new pipeline with a map stage
+     * @throws IllegalArgumentException if the given transformer is null
+     */
+    public Pipeline map(Transformer transformer) {
+        if (transformer == null) {
+            throw new IllegalArgumentException("Transformer must not be null.");
+        }
+        return new Pipeline(this, null, transformer);
+    }
+
+    /**
+     * Calls {@link Processor#process processor.process(...)} for each element
+     * of this pipeline. This is a terminal operation.
+     *
+     * @param processor the processor which processes each element
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    public void forEach(final Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        evaluate(new Sink() {
+            @Override
+            boolean accept(Object value) {
+                processor.process(value);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of elements of this pipeline. This is a terminal
+     * operation.
+     *
+     * @return the number of elements of this pipeline
+     */
+    public int count() {
+        CountSink sink = new CountSink();
+        evaluate(sink);
+        return sink.count;
+    }
+
+    /**
+     * Returns true if any element of this pipeline passes the test of the
+     * given tester. The traversal stops at the first such element, so the
+     * elements after it do not pass through any stage of this pipeline. This is
+     * a terminal operation.
+     *
+     * @param tester the tester which is applied to the elements
+     * @return true if any element passes the test, false otherwise
+     * @throws IllegalArgumentException if the given tester is null
+     */
+    public boolean anyMatch(Tester tester) {
+        if (tester == null) {
+            throw new IllegalArgumentException("Tester must not be null.");
+        }
+
+        MatchSink sink = new MatchSink(tester);
+        evaluate(sink);
+        return sink.matched;
+    }
+
+    /**
+     * Combines the elements of this pipeline into one result, starting with
+     * the given identity and passing the result accumulated so far and each
+     * element in turn to the given reducer. This is a terminal operation.
+     *
+     * @param identity the initial result
+     * @param reducer the reducer which combines the result with each element
+     * @return the result of the reduction, or the identity if this pipeline
+     *         has no elements
+     * @throws IllegalArgumentException if the given reducer is null
+     */
+    public Object reduce(Object identity, Reducer reducer) {
+        if (reducer == null) {
+            throw new IllegalArgumentException("Reducer must not be null.");
+        }
+
+        ReduceSink sink = new ReduceSink(identity, reducer);
+        evaluate(sink);
+        return sink.result;
+    }
+
+    /**
+     * Fuses all stages of this pipeline in front of the specified terminal sink
+     * and lets the source collection traverse its elements into them.
+     *
+     * @param terminal the sink of the terminal operation
+     */
+    private void evaluate(Sink terminal) {
+        Sink sink = terminal;
+        for (Pipeline stage = this; stage.previous != null; stage = stage.previous) {
+            sink = stage.wrap(sink);
+        }
+        source.traverse(sink);
+    }
+
+    /**
+     * Returns a sink which applies this stage to each element and passes the
+     * result to the <code>downstream</code> sink.
+     *
+     * @param downstream the sink of the next stage
+     * @return the sink of this stage
+     */
+    private Sink wrap(final Sink downstream) {
+        if (tester != null) {
+            return new Sink() {
+                @Override
+                boolean accept(Object value) {
+                    return !tester.test(value) || downstream.accept(value);
+                }
+            };
+        }
+
+        return new Sink() {
+            @Override
+            boolean accept(Object value) {
+                return downstream.accept(transformer.transform(value));
+            }
+        };
+    }
+
+    /**
+     * A sink accepts the elements of a pipeline one by one. Sinks of all stages
+     * are chained, and the sink of the terminal operation is the last one.
+     */
+    abstract static class Sink {
+
+        /**
+         * Accepts the value and returns whether the traversal should continue.
+         *
+         * @param value the element to be accepted
+         * @return true if more elements are wanted, false to stop the traversal
+         */
+        abstract boolean accept(Object value);
+
+    }
+
+    /**
+     * The sink of the {@linkplain Pipeline#count()} operation.
+     */
+    private static class CountSink extends Sink {
+
+        /** Number of elements accepted so far. */
+        private int count;
+
+        @Override
+        boolean accept(Object value) {
+            count++;
+            return true;
+        }
+
+    }
+
+    /**
+     * The sink of the {@linkplain Pipeline#anyMatch(Tester)} operation, which
+     * stops the traversal at the first matching element.
+     */
+    private static class MatchSink extends Sink {
+
+        /** The tester which is applied to the elements. */
+        private final Tester tester;
+        /** Whether a matching element has been found. */
+        private boolean matched;
+
+        /**
+         * Constructs a new MatchSink with the specified tester.
+         *
+         * @param tester the tester which is applied to the elements
+         */
+        public MatchSink(Tester tester) {
+            this.tester = tester;
+        }
+
+        @Override
+        boolean accept(Object value) {
+            matched = tester.test(value);
+            return !matched;
+        }
+
+    }
+
+    /**
+     * The sink of the {@linkplain Pipeline#reduce(Object, Reducer)} operation.
+     */
+    private static class ReduceSink extends Sink {
+
+        /** The reducer which combines the result with each element. */
+        private final Reducer reducer;
+        /** The result accumulated so far. */
+        private Object result;
+
+        /**
+         * Constructs a new ReduceSink with the specified initial result and
+         * reducer.
+         *
+         * @param identity the initial result
+         * @param reducer the reducer which combines the result with each element
+         */
+        public ReduceSink(Object identity, Reducer reducer) {
+            this.result = identity;
+            this.reducer = reducer;
+        }
+
+        @Override
+        boolean accept(Object value) {
+            result = reducer.reduce(result, value);
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,27 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This class is a functional class for combining Objects into one result. A
+ * reducer is asked to {@linkplain #reduce reduce} the result accumulated so
+ * far and the next value into a new result, for example to
+ * {@linkplain Pipeline#reduce(Object, Reducer) reduce} the elements of a
+ * pipeline.
+ *
+ * @author Mario Bobic
+ */
+public class Reducer {
+
+    /**
+     * Combines the result accumulated so far with the value. This method
+     * should be overridden by implementing the actual combination of the
+     * objects. This implementation returns the result unchanged.
+     *
+     * @param result the result accumulated so far
+     * @param value the next object to be combined with the result
+     * @return the new result
+     */
+    public Object reduce(Object result, Object value) {
+        return result;
+    }
+
+}
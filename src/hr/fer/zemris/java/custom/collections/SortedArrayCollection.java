@@ -0,0 +1,439 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Comparator;
+
+/**
+ * A sorted array collection stores objects into an array which is kept sorted
+ * by the {@linkplain Comparator} specified by the caller. The initial capacity
+ * of the array is specified by the caller or 16 by default, and if the array
+ * gets filled, its capacity expands to twice the number of the current
+ * capacity of the array.
+ * <p>
+ * The position of a new element is found by binary search, and the elements
+ * after that position are moved with a single block copy, so the complexity
+ * of {@linkplain #add(Object)} is O(log n) comparisons plus one block move.
+ * Elements that are equal by the comparator are kept in the order in which
+ * they were added.
+ * <p>
+ * Since the array is sorted, {@linkplain #indexOf(Object)},
+ * {@linkplain #contains(Object)} and {@linkplain #remove(Object)} find the
+ * elements equal by the comparator in O(log n) comparisons and then check
+ * only those with the {@link Object#equals equals} method. The
+ * {@linkplain #subRange(Object, Object)} method returns a view of all elements
+ * within a range of values.
+ * <p>
+ * This implementation <b>allows</b> duplicate elements. The <code>null</code>
+ * references are allowed only if the comparator accepts them.
+ *
+ * @author Mario Bobic
+ */
+public class SortedArrayCollection extends Collection {
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The comparator which defines the order of the elements. */
+    private final Comparator<Object> comparator;
+    /** The size of this collection (the number of elements it contains). */
+    private int size;
+    /** The sorted array into which the elements are stored. */
+    private Object[] elements;
+
+    /**
+     * Constructs an instance of SortedArrayCollection ordered by the specified
+     * comparator, with the default capacity of 16.
+     *
+     * @param comparator the comparator which defines the order of the elements
+     * @throws IllegalArgumentException if the comparator is null
+     */
+    public SortedArrayCollection(Comparator<?> comparator) {
+        this(comparator, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance of SortedArrayCollection ordered by the specified
+     * comparator, with the capacity set to <code>initialCapacity</code>.
+     * <p>
+     * Elements of this collection are passed to the comparator, so the
+     * comparator must accept all elements that are ever added to this
+     * collection or searched for. Otherwise, a {@linkplain ClassCastException}
+     * is thrown by the method that passes the element.
+     *
+     * @param comparator the comparator which defines the order of the elements
+     * @param initialCapacity initial capacity of this collection
+     * @throws IllegalArgumentException if the comparator is null or the
+     *         specified initial capacity is less than 1
+     */
+    @SuppressWarnings("unchecked")
+    public SortedArrayCollection(Comparator<?> comparator, int initialCapacity) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Comparator must not be null.");
+        }
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must not be less than 1.");
+        }
+        this.comparator = (Comparator<Object>) comparator;
+        elements = new Object[initialCapacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given object into this collection at the position determined
+     * by the comparator, after all elements that are equal to it by the
+     * comparator.
+     *
+     * @param value element to be added to this collection
+     * @throws ClassCastException if the comparator does not accept the value
+     */
+    @Override
+    public void add(Object value) {
+        int position = upperBound(value, 0, size);
+
+        if (size == elements.length) {
+            Object[] newElements = new Object[elements.length * 2];
+            System.arraycopy(elements, 0, newElements, 0, position);
+            System.arraycopy(elements, position, newElements, position+1, size-position);
+            elements = newElements;
+        } else {
+            System.arraycopy(elements, position, elements, position+1, size-position);
+        }
+
+        elements[position] = value;
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The complexity of this method is O(log n), unless there are many
+     * elements equal to the given value by the comparator.
+     * @throws ClassCastException if the comparator does not accept the value
+     */
+    @Override
+    public boolean contains(Object value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the object that is stored in this collection at position
+     * <code>index</code>, where the elements are sorted by the comparator.
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this collection
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public Object get(int index) {
+        checkIndex(index, size);
+
+        return elements[index];
+    }
+
+    /**
+     * Searches the collection and returns the index of the first occurrence of
+     * the given value or -1 if the value is not found. Only the elements equal
+     * to the given value by the comparator, found by binary search, are checked
+     * with the {@link Object#equals equals} method, or with the equals operator
+     * if the value is <code>null</code>.
+     *
+     * @param value element to search for
+     * @return the index of the first occurrence of the specified element in
+     *         this collection, or -1 if this it does not contain the element
+     * @throws ClassCastException if the comparator does not accept the value
+     */
+    public int indexOf(Object value) {
+        int from = lowerBound(value, 0, size);
+
+        for (int i = from; i < size && comparator.compare(elements[i], value) == 0; i++) {
+            Object element = elements[i];
+            if (value == null ? element == null : value.equals(element)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The element is found in O(log n) comparisons, unless there are many
+     * elements equal to it by the comparator, and the subsequent elements are
+     * shifted to the left with a single block copy.
+     * @throws ClassCastException if the comparator does not accept the value
+     */
+    @Override
+    public boolean remove(Object value) {
+        int index = indexOf(value);
+
+        if (index != -1) {
+            remove(index);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the element at the specified position in this collection.
+     * Shifts any subsequent elements to the left with a single block copy.
+     *
+     * @param index the index of the element to be removed
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public void remove(int index) {
+        checkIndex(index, size);
+
+        System.arraycopy(elements, index+1, elements, index, size-index-1);
+        elements[--size] = null;
+    }
+
+    /**
+     * Returns a view of the elements of this collection that are greater than
+     * or equal to <code>from</code> and less than <code>to</code> by the
+     * comparator. The view is backed by this collection, so the changes of
+     * this collection are reflected in the view and vice versa. The bounds of
+     * the view within this collection are found by binary search whenever the
+     * view is accessed.
+     * <p>
+     * Adding an element to the view that is outside of its range throws an
+     * {@linkplain IllegalArgumentException}.
+     *
+     * @param from the lower bound of the range, inclusive
+     * @param to the upper bound of the range, exclusive
+     * @return a view of the elements within the range
+     * @throws IllegalArgumentException if <code>from</code> is greater than
+     *         <code>to</code>
+     * @throws ClassCastException if the comparator does not accept the bounds
+     */
+    public Collection subRange(Object from, Object to) {
+        if (comparator.compare(from, to) > 0) {
+            throw new IllegalArgumentException("Lower bound must not be greater than upper bound.");
+        }
+        return new SubRange(from, to);
+    }
+
+    @Override
+    public void clear() {
+        elements = new Object[elements.length];
+        size = 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return copyOfRange(0, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Elements are sent in the order defined by the comparator.
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void forEach(Processor processor) {
+        forEachInRange(processor, 0, size);
+    }
+
+    /**
+     * Returns the index of the first element that is not less than the given
+     * value by the comparator, searching in the index range
+     * <code>[from, to)</code>.
+     *
+     * @param value the value to search for
+     * @param from start of the index range, inclusive
+     * @param to end of the index range, exclusive
+     * @return index of the first element not less than the value
+     */
+    private int lowerBound(Object value, int from, int to) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (comparator.compare(elements[middle], value) < 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the index of the first element that is greater than the given
+     * value by the comparator, searching in the index range
+     * <code>[from, to)</code>.
+     *
+     * @param value the value to search for
+     * @param from start of the index range, inclusive
+     * @param to end of the index range, exclusive
+     * @return index of the first element greater than the value
+     */
+    private int upperBound(Object value, int from, int to) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (comparator.compare(elements[middle], value) <= 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns a new array containing the elements in the index range
+     * <code>[from, to)</code>.
+     *
+     * @param from start of the index range, inclusive
+     * @param to end of the index range, exclusive
+     * @return a new array containing the elements in the range
+     */
+    private Object[] copyOfRange(int from, int to) {
+        Object[] array = new Object[to - from];
+        System.arraycopy(elements, from, array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Calls the processor for each element in the index range
+     * <code>[from, to)</code>.
+     *
+     * @param processor the processor which processes each element
+     * @param from start of the index range, inclusive
+     * @param to end of the index range, exclusive
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    private void forEachInRange(Processor processor, int from, int to) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (int i = from; i < to; i++) {
+            processor.process(elements[i]);
+        }
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @param size the size of the indexed range
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+    /**
+     * A view of the elements of the enclosing collection within a range of
+     * values. The index bounds of the view are found by binary search on each
+     * access, so the view always reflects the current state of the enclosing
+     * collection.
+     */
+    private class SubRange extends Collection {
+
+        /** The lower bound of the range, inclusive. */
+        private final Object from;
+        /** The upper bound of the range, exclusive. */
+        private final Object to;
+
+        /**
+         * Constructs a new SubRange view with the specified bounds.
+         *
+         * @param from the lower bound of the range, inclusive
+         * @param to the upper bound of the range, exclusive
+         */
+        public SubRange(Object from, Object to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return end() - start();
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws IllegalArgumentException if the value is out of the range
+         */
+        @Override
+        public void add(Object value) {
+            if (!inRange(value)) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+            SortedArrayCollection.this.add(value);
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return inRange(value) && SortedArrayCollection.this.contains(value);
+        }
+
+        @Override
+        public boolean remove(Object value) {
+            return inRange(value) && SortedArrayCollection.this.remove(value);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return copyOfRange(start(), end());
+        }
+
+        @Override
+        public void forEach(Processor processor) {
+            forEachInRange(processor, start(), end());
+        }
+
+        @Override
+        public void clear() {
+            int start = start();
+            int end = end();
+            System.arraycopy(elements, end, elements, start, size - end);
+            for (int i = size - (end - start); i < size; i++) {
+                elements[i] = null;
+            }
+            size -= end - start;
+        }
+
+        /**
+         * Returns the index of the first element of the view in the enclosing
+         * collection.
+         *
+         * @return the index of the first element of the view
+         */
+        private int start() {
+            return lowerBound(from, 0, size);
+        }
+
+        /**
+         * Returns the index after the last element of the view in the
+         * enclosing collection.
+         *
+         * @return the index after the last element of the view
+         */
+        private int end() {
+            return lowerBound(to, 0, size);
+        }
+
+        /**
+         * Returns true if the value is within the range of this view.
+         *
+         * @param value the value to be checked
+         * @return true if the value is within the range of this view
+         */
+        private boolean inRange(Object value) {
+            return comparator.compare(value, from) >= 0 && comparator.compare(value, to) < 0;
+        }
+
+    }
+
+}
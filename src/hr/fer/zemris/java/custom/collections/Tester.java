@@ -0,0 +1,24 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This class is a functional class for testing an Object. A tester may be
+ * asked to {@linkplain #test test} the value passed as an argument to the only
+ * method in this class, for example to decide which elements pass a
+ * {@linkplain Pipeline#filter(Tester) filter}.
+ *
+ * @author Mario Bobic
+ */
+public class Tester {
+
+    /**
+     * Tests the value. This method should be overridden by implementing the
+     * actual test of the object. This implementation accepts every object.
+     *
+     * @param value the object to be tested
+     * @return true if the object passes the test, false otherwise
+     */
+    public boolean test(Object value) {
+        return true;
+    }
+
+}
@@ -0,0 +1,25 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * This class is a functional class for transforming an Object. A transformer
+ * may be asked to {@linkplain #transform transform} the value passed as an
+ * argument to the only method in this class, for example to
+ * {@linkplain Pipeline#map(Transformer) map} the elements of a pipeline.
+ *
+ * @author Mario Bobic
+ */
+public class Transformer {
+
+    /**
+     * Transforms the value. This method should be overridden by implementing
+     * the actual transformation of the object. This implementation returns the
+     * object unchanged.
+     *
+     * @param value the object to be transformed
+     * @return the transformed object
+     */
+    public Object transform(Object value) {
+        return value;
+    }
+
+}
@@ -39,7 +39,8 @@ import hr.fer.zemris.java.graphics.views.*;
  * the stream has been reached, the program writes an appropriate message and
  * returns.
  * <p>
- * Once the specified amount of shapes have been parsed, the program creates a
+ * Once the specified amount of shapes have been parsed, the program compiles
+ * them into a {@linkplain DisplayList}, renders it on the raster, creates a
  * {@linkplain SimpleRasterView} and produces the result.
  *
  * @author Mario Bobic
@@ -57,9 +58,6 @@ public class Demo {
     /** A constant defining the CIRCLE keyword. */
     private static final String CIRCLE = "CIRCLE";
 
-    /** True if the flip mode is on, false if it is off. */
-    private static boolean flipped;
-
     /** A collection used for storing shapes. */
     private static ArrayIndexedCollection shapes;
     /** The width dimension of the raster provided from the command line. */
@@ -109,19 +107,7 @@ public class Demo {
 
         /* Drawing begins. */
         BWRaster raster = new BWRasterMem(width, height);
-        for (Object shape : shapes.toArray()) {
-            if (shape == null) {
-                if (flipped) {
-                    raster.disableFlipMode();
-                    flipped = false;
-                } else {
-                    raster.enableFlipMode();
-                    flipped = true;
-                }
-            } else {
-                ((GeometricShape) shape).draw(raster);
-            }
-        }
+        new DisplayList(shapes).render(raster);
 
         RasterView view = new SimpleRasterView();
         view.produce(raster);
@@ -0,0 +1,93 @@
+package hr.fer.zemris.java.graphics;
+
+import java.util.Random;
+
+import hr.fer.zemris.java.graphics.raster.*;
+import hr.fer.zemris.java.graphics.shapes.*;
+
+/**
+ * A benchmark of the {@linkplain ConnectedComponents connected-component
+ * labeling} and the {@linkplain FloodFill flood fill} on a large raster.
+ * <p>
+ * The raster is filled with randomly placed circles, ellipses and rectangles,
+ * labeled, and then its background is flood filled from the first turned off
+ * pixel. Both operations are timed on a {@linkplain BWRasterPacked packed
+ * raster} and on a {@linkplain BWRasterMem}. The size of the square raster may
+ * be given as the first command line argument and defaults to <tt>10000</tt>.
+ *
+ * @author Mario Bobic
+ */
+public class RegionBenchmark {
+
+    /** The default size of the raster. */
+    private static final int DEFAULT_SIZE = 10_000;
+    /** Number of shapes drawn on the raster. */
+    private static final int SHAPES = 10_000;
+
+    /**
+     * Program entry point.
+     *
+     * @param args the size of the raster, optional
+     */
+    public static void main(String[] args) {
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            try {
+                size = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid size: " + args[0]);
+                return;
+            }
+        }
+
+        benchmark(new BWRasterPacked(size, size));
+        benchmark(new BWRasterMem(size, size));
+    }
+
+    /**
+     * Draws random shapes on the specified raster, labels its components and
+     * fills its background, printing the time taken by each step.
+     *
+     * @param raster the raster on which the benchmark is run
+     */
+    private static void benchmark(BWRaster raster) {
+        int size = raster.getWidth();
+        Random random = new Random(42);
+        int maxRadius = Math.max(2, size / 200);
+
+        for (int i = 0; i < SHAPES; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            int a = 1 + random.nextInt(maxRadius);
+            int b = 1 + random.nextInt(maxRadius);
+            switch (random.nextInt(3)) {
+                case 0:
+                    new Circle(x, y, a).draw(raster);
+                    break;
+                case 1:
+                    new Ellipse(x, y, a, b).draw(raster);
+                    break;
+                default:
+                    new Rectangle(x, y, a, b).draw(raster);
+            }
+        }
+
+        System.out.println(raster.getClass().getSimpleName() + " " + size + "x" + size);
+
+        long start = System.nanoTime();
+        ConnectedComponents components = new ConnectedComponents(raster);
+        long labeled = System.nanoTime();
+        System.out.printf("  labeling:   %d components in %d ms%n",
+            components.getCount(), (labeled - start) / 1_000_000);
+
+        int seed = 0;
+        while (raster.isTurnedOn(seed % size, seed / size)) {
+            seed++;
+        }
+        long filled = FloodFill.fill(raster, seed % size, seed / size);
+        long end = System.nanoTime();
+        System.out.printf("  flood fill: %d pixels in %d ms%n",
+            filled, (end - labeled) / 1_000_000);
+    }
+
+}
@@ -0,0 +1,278 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import java.util.Arrays;
+
+/**
+ * This class is an implementation of a {@linkplain BWRaster} which packs the
+ * pixels into bits of <tt>long</tt> words, one row after another. Each row
+ * starts with a new word, and pixel <tt>x</tt> of a row is bit <tt>x % 64</tt>
+ * of word <tt>x / 64</tt> of the row. A packed raster takes eight times less
+ * memory than a {@linkplain BWRasterMem}, and algorithms working on whole
+ * rows, such as the {@linkplain SummedAreaTable}, can process 64 pixels at a
+ * time.
+ * <p>
+ * The raster counts the modifications of its pixels, which lets the
+ * structures computed from the raster detect that they have become stale.
+ *
+ * @author Mario Bobic
+ */
+public class BWRasterPacked implements BWRaster {
+
+    /** The width dimension of this raster. */
+    private final int width;
+    /** The height dimension of this raster. */
+    private final int height;
+    /** Number of words of each row. */
+    final int wordsPerRow;
+    /**
+     * The pixels of this raster, where the pixel at <tt>(x, y)</tt> is bit
+     * <tt>x % 64</tt> of the word at index <tt>y*wordsPerRow + x/64</tt>.
+     */
+    final long[] words;
+    /** True if the flip mode is on, false if it is off. */
+    private boolean flipped;
+    /** Number of times the pixels of this raster have been modified. */
+    private int modCount;
+
+    /**
+     * Constructs a new instance of BWRasterPacked with the specified width and
+     * height. Both width and height must be greater than 0.
+     * All pixels are initially turned off.
+     *
+     * @param width the width dimension of this raster
+     * @param height the height dimension of this raster
+     * @throws IllegalArgumentException if the width or height is invalid
+     */
+    public BWRasterPacked(int width, int height) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Invalid width: " + width);
+        }
+        if (height < 1) {
+            throw new IllegalArgumentException("Invalid height: " + height);
+        }
+        int wordsPerRow = (int) (((long) width + 63) >>> 6);
+        if ((long) wordsPerRow * height > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Raster too large: " + width + "x" + height);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = wordsPerRow;
+        words = new long[wordsPerRow * height];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        modCount++;
+    }
+
+    @Override
+    public void turnOn(int x, int y) {
+        checkPixel(x, y);
+        int index = y*wordsPerRow + (x >>> 6);
+        if (flipped) {
+            words[index] ^= 1L << x;
+        } else {
+            words[index] |= 1L << x;
+        }
+        modCount++;
+    }
+
+    @Override
+    public void turnOff(int x, int y) {
+        checkPixel(x, y);
+        words[y*wordsPerRow + (x >>> 6)] &= ~(1L << x);
+        modCount++;
+    }
+
+    @Override
+    public void enableFlipMode() {
+        flipped = true;
+    }
+
+    @Override
+    public void disableFlipMode() {
+        flipped = false;
+    }
+
+    @Override
+    public boolean isTurnedOn(int x, int y) {
+        checkPixel(x, y);
+        return (words[y*wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Returns the number of times the pixels of this raster have been
+     * modified. Each call of {@linkplain #turnOn}, {@linkplain #turnOff} and
+     * {@linkplain #clear} counts as a modification.
+     *
+     * @return the number of modifications of this raster
+     */
+    public int getModificationCount() {
+        return modCount;
+    }
+
+    /**
+     * Counts a modification of the pixels of this raster made directly on
+     * its words.
+     */
+    void modified() {
+        modCount++;
+    }
+
+    /**
+     * Packs the specified row of the specified raster into words, laid out as
+     * the rows of a packed raster. The row of a packed raster is copied.
+     *
+     * @param raster the raster
+     * @param y the row of the raster
+     * @param row the words to which the row is packed
+     */
+    static void pack(BWRaster raster, int y, long[] row) {
+        if (raster instanceof BWRasterPacked) {
+            BWRasterPacked packed = (BWRasterPacked) raster;
+            System.arraycopy(packed.words, y * packed.wordsPerRow, row, 0, packed.wordsPerRow);
+            return;
+        }
+
+        int width = raster.getWidth();
+        for (int i = 0; i < row.length; i++) {
+            long word = 0;
+            int bits = Math.min(64, width - (i << 6));
+            for (int b = 0; b < bits; b++) {
+                if (raster.isTurnedOn((i << 6) + b, y)) {
+                    word |= 1L << b;
+                }
+            }
+            row[i] = word;
+        }
+    }
+
+    /**
+     * Returns the index of the first set bit from <tt>from</tt> inclusive to
+     * <tt>to</tt> exclusive of the row starting at the specified word, or
+     * <tt>to</tt> if there is none.
+     *
+     * @param words the words of the rows
+     * @param offset index of the first word of the row
+     * @param from the first bit, inclusive
+     * @param to the last bit, exclusive
+     * @return index of the first set bit, or <tt>to</tt>
+     */
+    static int nextSetBit(long[] words, int offset, int from, int to) {
+        if (from >= to) {
+            return to;
+        }
+        int i = from >>> 6;
+        long word = words[offset + i] & (-1L << from);
+        while (word == 0) {
+            if (++i << 6 >= to) {
+                return to;
+            }
+            word = words[offset + i];
+        }
+        return Math.min((i << 6) + Long.numberOfTrailingZeros(word), to);
+    }
+
+    /**
+     * Returns the index of the first clear bit from <tt>from</tt> inclusive
+     * to <tt>to</tt> exclusive of the row starting at the specified word, or
+     * <tt>to</tt> if there is none.
+     *
+     * @param words the words of the rows
+     * @param offset index of the first word of the row
+     * @param from the first bit, inclusive
+     * @param to the last bit, exclusive
+     * @return index of the first clear bit, or <tt>to</tt>
+     */
+    static int nextClearBit(long[] words, int offset, int from, int to) {
+        if (from >= to) {
+            return to;
+        }
+        int i = from >>> 6;
+        long word = ~words[offset + i] & (-1L << from);
+        while (word == 0) {
+            if (++i << 6 >= to) {
+                return to;
+            }
+            word = ~words[offset + i];
+        }
+        return Math.min((i << 6) + Long.numberOfTrailingZeros(word), to);
+    }
+
+    /**
+     * Returns the index of the last set bit not after <tt>from</tt> of the
+     * row starting at the specified word, or <tt>-1</tt> if there is none.
+     *
+     * @param words the words of the rows
+     * @param offset index of the first word of the row
+     * @param from the last bit, inclusive
+     * @return index of the last set bit, or <tt>-1</tt>
+     */
+    static int previousSetBit(long[] words, int offset, int from) {
+        int i = from >>> 6;
+        long word = words[offset + i] & (-1L >>> (63 - (from & 63)));
+        while (word == 0) {
+            if (--i < 0) {
+                return -1;
+            }
+            word = words[offset + i];
+        }
+        return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * Sets the bits from <tt>from</tt> inclusive to <tt>to</tt> exclusive of
+     * the row starting at the specified word.
+     *
+     * @param words the words of the rows
+     * @param offset index of the first word of the row
+     * @param from the first bit, inclusive
+     * @param to the last bit, exclusive
+     */
+    static void setBits(long[] words, int offset, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[offset + first] |= firstMask & lastMask;
+            return;
+        }
+        words[offset + first] |= firstMask;
+        Arrays.fill(words, offset + first + 1, offset + last, -1L);
+        words[offset + last] |= lastMask;
+    }
+
+    /**
+     * Checks if the <tt>x</tt> and <tt>y</tt> coordinates are <b>not</b> in
+     * limits of the raster and throws an {@linkplain IllegalArgumentException}
+     * if the test returns true.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     */
+    private void checkPixel(int x, int y) {
+        if (   x < 0 || x >= width
+            || y < 0 || y >= height) {
+            throw new IllegalArgumentException(
+                "Invalid pixel: (" + x + ", " + y + ")");
+        }
+    }
+
+}
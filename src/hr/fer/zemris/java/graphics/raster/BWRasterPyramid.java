@@ -0,0 +1,537 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import java.util.Arrays;
+
+/**
+ * A pyramid of levels of detail over a {@linkplain BWRaster}. Level <tt>0</tt>
+ * is the raster itself, and each pixel of level <tt>k</tt> stands for a block
+ * of <tt>2^k * 2^k</tt> pixels of the raster, which is the union of a block of
+ * <tt>2*2</tt> pixels of level <tt>k-1</tt>. The top level has a single
+ * pixel, standing for the whole raster.
+ * <p>
+ * Each level keeps the number of turned on pixels of the raster in each of
+ * its blocks, so a pixel of a level is turned on if any pixel of its block is
+ * turned on. Questions about a large region of the raster, such as whether
+ * any pixel in it is turned on, are answered by descending the pyramid from
+ * the top and visiting only the blocks on the border of the region which
+ * contain turned on pixels. A zoomed-out view of the raster is a
+ * {@linkplain #getLevel(int) level} of the pyramid, which can be produced by
+ * any {@linkplain hr.fer.zemris.java.graphics.views.RasterView raster view}.
+ * <p>
+ * The pyramid is itself a raster which draws on the wrapped raster and keeps
+ * the counts of all levels up to date, at the cost of a single count per
+ * level for each changed pixel. Drawing on the wrapped raster directly leaves
+ * the pyramid stale.
+ * <p>
+ * The counts of the lowest levels are kept in bytes, as they can not exceed
+ * <tt>64</tt>, and the counts of the levels whose blocks hold <tt>2^32</tt>
+ * pixels or more are kept in longs. The levels of rasters so large that a
+ * level would not fit into an array are not kept, and their blocks are
+ * counted from the pixels of the raster when needed.
+ *
+ * @author Mario Bobic
+ */
+public class BWRasterPyramid implements BWRaster {
+
+    /** The highest level whose counts are kept in bytes. */
+    private static final int MAX_BYTE_LEVEL = 3;
+    /** The highest level whose counts are kept in ints. */
+    private static final int MAX_INT_LEVEL = 15;
+    /** Maximum number of blocks of a kept level. */
+    private static final long MAX_LEVEL_SIZE = Integer.MAX_VALUE - 8;
+
+    /** The raster on which the pyramid is built. */
+    private final BWRaster raster;
+    /** The width dimension of the raster. */
+    private final int width;
+    /** The height dimension of the raster. */
+    private final int height;
+    /** The number of levels, including level <tt>0</tt>. */
+    private final int levelCount;
+    /** The lowest kept level, which is at least <tt>1</tt>. */
+    private final int base;
+    /** Counts of the kept levels up to {@value #MAX_BYTE_LEVEL}. */
+    private final byte[][] smallCounts;
+    /** Counts of the kept levels above {@value #MAX_BYTE_LEVEL}. */
+    private final int[][] largeCounts;
+    /** Counts of the kept levels above {@value #MAX_INT_LEVEL}. */
+    private final long[][] hugeCounts;
+
+    /**
+     * Constructs a new pyramid over the specified raster, counting its pixels
+     * that are turned on.
+     *
+     * @param raster the raster on which the pyramid is built
+     * @throws IllegalArgumentException if the raster is null
+     */
+    public BWRasterPyramid(BWRaster raster) {
+        if (raster == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+        this.raster = raster;
+        this.width = raster.getWidth();
+        this.height = raster.getHeight();
+
+        int levels = 1;
+        while (levelWidth(levels - 1) > 1 || levelHeight(levels - 1) > 1) {
+            levels++;
+        }
+        this.levelCount = levels;
+
+        int lowest = 1;
+        while (lowest < levels && (long) levelWidth(lowest) * levelHeight(lowest) > MAX_LEVEL_SIZE) {
+            lowest++;
+        }
+        this.base = lowest;
+
+        smallCounts = new byte[levels][];
+        largeCounts = new int[levels][];
+        hugeCounts = new long[levels][];
+        for (int level = base; level < levels; level++) {
+            int size = levelWidth(level) * levelHeight(level);
+            if (level <= MAX_BYTE_LEVEL) {
+                smallCounts[level] = new byte[size];
+            } else if (level <= MAX_INT_LEVEL) {
+                largeCounts[level] = new int[size];
+            } else {
+                hugeCounts[level] = new long[size];
+            }
+        }
+
+        build();
+    }
+
+    /**
+     * Counts the turned on pixels of each block of the lowest kept level and
+     * sums the counts of each higher level from the level below it.
+     */
+    private void build() {
+        if (base >= levelCount) {
+            return;
+        }
+
+        int baseWidth = levelWidth(base);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (raster.isTurnedOn(x, y)) {
+                    add(base, (y >> base) * baseWidth + (x >> base), 1);
+                }
+            }
+        }
+
+        for (int level = base + 1; level < levelCount; level++) {
+            int belowWidth = levelWidth(level - 1);
+            int belowHeight = levelHeight(level - 1);
+            int levelWidth = levelWidth(level);
+            for (int y = 0; y < belowHeight; y++) {
+                for (int x = 0; x < belowWidth; x++) {
+                    long count = count(level - 1, y * belowWidth + x);
+                    if (count != 0) {
+                        add(level, (y >> 1) * levelWidth + (x >> 1), count);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the raster on which this pyramid is built.
+     *
+     * @return the raster on which this pyramid is built
+     */
+    public BWRaster getRaster() {
+        return raster;
+    }
+
+    /**
+     * Returns the number of levels of this pyramid, including level
+     * <tt>0</tt>, which is the raster itself.
+     *
+     * @return the number of levels of this pyramid
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Returns the width of the specified level, which is the width of the
+     * raster divided by <tt>2^level</tt> and rounded up.
+     *
+     * @param level the level
+     * @return the width of the level
+     * @throws IndexOutOfBoundsException if the level is invalid
+     */
+    public int getLevelWidth(int level) {
+        checkLevel(level);
+        return levelWidth(level);
+    }
+
+    /**
+     * Returns the height of the specified level, which is the height of the
+     * raster divided by <tt>2^level</tt> and rounded up.
+     *
+     * @param level the level
+     * @return the height of the level
+     * @throws IndexOutOfBoundsException if the level is invalid
+     */
+    public int getLevelHeight(int level) {
+        checkLevel(level);
+        return levelHeight(level);
+    }
+
+    /**
+     * Returns the number of turned on pixels of the raster in the block
+     * standing for the pixel at <tt>(x, y)</tt> of the specified level.
+     *
+     * @param level the level
+     * @param x the x coordinate of the pixel of the level
+     * @param y the y coordinate of the pixel of the level
+     * @return the number of turned on pixels in the block
+     * @throws IndexOutOfBoundsException if the level is invalid
+     * @throws IllegalArgumentException if the pixel is not within the limits
+     *         of the level
+     */
+    public long getCount(int level, int x, int y) {
+        checkLevel(level);
+        if (   x < 0 || x >= levelWidth(level)
+            || y < 0 || y >= levelHeight(level)) {
+            throw new IllegalArgumentException(
+                "Invalid pixel: (" + x + ", " + y + ")");
+        }
+        return countIn(level, x, y, 0, 0, width, height, false);
+    }
+
+    /**
+     * Returns a read-only view of the specified level, in which a pixel is
+     * turned on if any pixel of its block of the raster is turned on. The view
+     * reflects later changes made through this pyramid.
+     *
+     * @param level the level
+     * @return a view of the level
+     * @throws IndexOutOfBoundsException if the level is invalid
+     */
+    public BWRaster getLevel(int level) {
+        checkLevel(level);
+        return new LevelView(level);
+    }
+
+    /**
+     * Returns true if any pixel of the raster is turned on in the specified
+     * region. The parts of the region outside of the raster are ignored.
+     *
+     * @param x the x coordinate of the top left pixel of the region
+     * @param y the y coordinate of the top left pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @return true if any pixel is turned on in the region
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    public boolean anyTurnedOn(int x, int y, int w, int h) {
+        return countRegion(x, y, w, h, true) != 0;
+    }
+
+    /**
+     * Returns the number of turned on pixels of the raster in the specified
+     * region. The parts of the region outside of the raster are ignored.
+     *
+     * @param x the x coordinate of the top left pixel of the region
+     * @param y the y coordinate of the top left pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @return the number of turned on pixels in the region
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    public long countTurnedOn(int x, int y, int w, int h) {
+        return countRegion(x, y, w, h, false);
+    }
+
+    /**
+     * Clips the specified region to the raster and counts its turned on pixels
+     * from the top level down.
+     *
+     * @param x the x coordinate of the top left pixel of the region
+     * @param y the y coordinate of the top left pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @param any true if counting may stop at the first turned on pixel
+     * @return the number of turned on pixels in the region
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    private long countRegion(int x, int y, int w, int h, boolean any) {
+        if (w < 0 || h < 0) {
+            throw new IllegalArgumentException("Invalid region size: " + w + "x" + h);
+        }
+        int fromX = Math.max(x, 0);
+        int fromY = Math.max(y, 0);
+        int toX = (int) Math.min((long) x + w, width);
+        int toY = (int) Math.min((long) y + h, height);
+        if (fromX >= toX || fromY >= toY) {
+            return 0;
+        }
+        return countIn(levelCount - 1, 0, 0, fromX, fromY, toX, toY, any);
+    }
+
+    /**
+     * Counts the turned on pixels of the block <tt>(bx, by)</tt> of the
+     * specified level which lie in the region from <tt>(fromX, fromY)</tt>
+     * inclusive to <tt>(toX, toY)</tt> exclusive.
+     * <p>
+     * A block lying fully in the region, or having no turned on pixels, is
+     * answered by its count. Otherwise its four blocks of the level below are
+     * counted, down to the lowest kept level, whose pixels are tested
+     * directly.
+     *
+     * @param level the level of the block
+     * @param bx the x coordinate of the block
+     * @param by the y coordinate of the block
+     * @param fromX the x coordinate of the region, inclusive
+     * @param fromY the y coordinate of the region, inclusive
+     * @param toX the x coordinate of the region, exclusive
+     * @param toY the y coordinate of the region, exclusive
+     * @param any true if counting may stop at the first turned on pixel
+     * @return the number of turned on pixels of the block in the region
+     */
+    private long countIn(int level, int bx, int by, int fromX, int fromY, int toX, int toY, boolean any) {
+        int left = Math.max((int) Math.min((long) bx << level, width), fromX);
+        int top = Math.max((int) Math.min((long) by << level, height), fromY);
+        int right = (int) Math.min(Math.min((long) (bx + 1) << level, width), toX);
+        int bottom = (int) Math.min(Math.min((long) (by + 1) << level, height), toY);
+        if (left >= right || top >= bottom) {
+            return 0;
+        }
+
+        if (level >= base) {
+            long count = count(level, by * levelWidth(level) + bx);
+            boolean inside = left == (long) bx << level && top == (long) by << level
+                    && right == Math.min((long) (bx + 1) << level, width)
+                    && bottom == Math.min((long) (by + 1) << level, height);
+            if (count == 0 || inside) {
+                return count;
+            }
+        }
+
+        long count = 0;
+        if (level <= base) {
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    if (raster.isTurnedOn(x, y)) {
+                        if (any) {
+                            return 1;
+                        }
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            count += countIn(level - 1, 2*bx + (i & 1), 2*by + (i >> 1), left, top, right, bottom, any);
+            if (any && count != 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        raster.clear();
+        for (int level = base; level < levelCount; level++) {
+            if (level <= MAX_BYTE_LEVEL) {
+                Arrays.fill(smallCounts[level], (byte) 0);
+            } else if (level <= MAX_INT_LEVEL) {
+                Arrays.fill(largeCounts[level], 0);
+            } else {
+                Arrays.fill(hugeCounts[level], 0);
+            }
+        }
+    }
+
+    @Override
+    public void turnOn(int x, int y) {
+        boolean before = raster.isTurnedOn(x, y);
+        raster.turnOn(x, y);
+        changed(x, y, before);
+    }
+
+    @Override
+    public void turnOff(int x, int y) {
+        boolean before = raster.isTurnedOn(x, y);
+        raster.turnOff(x, y);
+        changed(x, y, before);
+    }
+
+    @Override
+    public void enableFlipMode() {
+        raster.enableFlipMode();
+    }
+
+    @Override
+    public void disableFlipMode() {
+        raster.disableFlipMode();
+    }
+
+    @Override
+    public boolean isTurnedOn(int x, int y) {
+        return raster.isTurnedOn(x, y);
+    }
+
+    /**
+     * Updates the counts of the blocks containing the pixel at
+     * <tt>(x, y)</tt> of the raster if the pixel has changed.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param before true if the pixel was turned on before the change
+     */
+    private void changed(int x, int y, boolean before) {
+        boolean after = raster.isTurnedOn(x, y);
+        if (before == after) {
+            return;
+        }
+
+        int delta = after ? 1 : -1;
+        for (int level = base; level < levelCount; level++) {
+            add(level, (y >> level) * levelWidth(level) + (x >> level), delta);
+        }
+    }
+
+    /**
+     * Returns the count of the block at the specified index of a kept level.
+     *
+     * @param level the kept level
+     * @param index index of the block
+     * @return the count of the block
+     */
+    private long count(int level, int index) {
+        if (level <= MAX_BYTE_LEVEL) {
+            return smallCounts[level][index] & 0xFF;
+        }
+        return level <= MAX_INT_LEVEL ? largeCounts[level][index] : hugeCounts[level][index];
+    }
+
+    /**
+     * Adds the specified number to the count of the block at the specified
+     * index of a kept level.
+     *
+     * @param level the kept level
+     * @param index index of the block
+     * @param delta the number to be added
+     */
+    private void add(int level, int index, long delta) {
+        if (level <= MAX_BYTE_LEVEL) {
+            smallCounts[level][index] += delta;
+        } else if (level <= MAX_INT_LEVEL) {
+            largeCounts[level][index] += delta;
+        } else {
+            hugeCounts[level][index] += delta;
+        }
+    }
+
+    /**
+     * Returns the width of the specified level.
+     *
+     * @param level the level
+     * @return the width of the level
+     */
+    private int levelWidth(int level) {
+        return ((width - 1) >> level) + 1;
+    }
+
+    /**
+     * Returns the height of the specified level.
+     *
+     * @param level the level
+     * @return the height of the level
+     */
+    private int levelHeight(int level) {
+        return ((height - 1) >> level) + 1;
+    }
+
+    /**
+     * Checks if the specified level is invalid and throws an
+     * {@linkplain IndexOutOfBoundsException} if the test returns true.
+     *
+     * @param level the level to be checked
+     * @throws IndexOutOfBoundsException if the level is invalid
+     */
+    private void checkLevel(int level) {
+        if (level < 0 || level >= levelCount) {
+            throw new IndexOutOfBoundsException("Invalid level: " + level);
+        }
+    }
+
+    /**
+     * A read-only view of a level of the pyramid, in which a pixel is turned
+     * on if its block has a turned on pixel.
+     *
+     * @author Mario Bobic
+     */
+    private class LevelView implements BWRaster {
+
+        /** The level of this view. */
+        private final int level;
+
+        /**
+         * Constructs a new view of the specified level.
+         *
+         * @param level the level of this view
+         */
+        public LevelView(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public int getWidth() {
+            return levelWidth(level);
+        }
+
+        @Override
+        public int getHeight() {
+            return levelHeight(level);
+        }
+
+        @Override
+        public boolean isTurnedOn(int x, int y) {
+            return getCount(level, x, y) != 0;
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Level views are read-only.");
+        }
+
+        @Override
+        public void turnOn(int x, int y) {
+            throw new UnsupportedOperationException("Level views are read-only.");
+        }
+
+        @Override
+        public void turnOff(int x, int y) {
+            throw new UnsupportedOperationException("Level views are read-only.");
+        }
+
+        @Override
+        public void enableFlipMode() {
+            throw new UnsupportedOperationException("Level views are read-only.");
+        }
+
+        @Override
+        public void disableFlipMode() {
+            throw new UnsupportedOperationException("Level views are read-only.");
+        }
+
+    }
+
+}
@@ -0,0 +1,217 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import java.util.Arrays;
+
+/**
+ * The connected components of the turned on pixels of a
+ * {@linkplain BWRaster}, where two pixels are connected if they are
+ * neighbours in a row or in a column. The components are labeled from
+ * <tt>1</tt> in the order in which their first pixels appear, row by row,
+ * and label <tt>0</tt> stands for the turned off pixels.
+ * <p>
+ * The components are labeled by two passes over the runs of turned on pixels
+ * of each row. The first pass gives each run the label of a run overlapping it
+ * in the row above, or a new label if there is none, and records that the
+ * labels of all runs overlapping it are equivalent in a union-find structure.
+ * The second pass replaces the label of each run by the final label of its
+ * equivalence class. The labels are kept per run rather than per pixel, so a
+ * labeling takes memory proportional to the number of runs, and the label of
+ * a pixel is found by a binary search through the runs of its row.
+ * <p>
+ * The rows of a {@linkplain BWRasterPacked packed raster} are split into runs
+ * a word at a time, while the rows of other rasters are packed first.
+ * The labeling is a snapshot of the raster and is not changed by later
+ * changes of the raster.
+ *
+ * @author Mario Bobic
+ */
+public class ConnectedComponents {
+
+    /** The width dimension of the raster. */
+    private final int width;
+    /** The height dimension of the raster. */
+    private final int height;
+    /** Index of the first run of each row, followed by the number of runs. */
+    private final int[] rows;
+    /** Start of each run, inclusive. */
+    private int[] start;
+    /** End of each run, exclusive. */
+    private int[] end;
+    /** Label of each run. */
+    private int[] label;
+    /** Number of pixels of each component, by its label. */
+    private final long[] sizes;
+
+    /**
+     * Labels the connected components of the specified raster.
+     *
+     * @param raster the raster whose components are labeled
+     * @throws IllegalArgumentException if the raster is null
+     */
+    public ConnectedComponents(BWRaster raster) {
+        if (raster == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+        width = raster.getWidth();
+        height = raster.getHeight();
+        rows = new int[height + 1];
+        start = new int[64];
+        end = new int[64];
+        label = new int[64];
+
+        /* First pass: provisional labels and their equivalences. */
+        int[] parent = new int[64];
+        int labels = 0;
+        int runCount = 0;
+        long[] row = new long[(width + 63) >>> 6];
+
+        for (int y = 0; y < height; y++) {
+            BWRasterPacked.pack(raster, y, row);
+            rows[y] = runCount;
+            int above = y == 0 ? 0 : rows[y - 1];
+            int aboveEnd = runCount;
+
+            int s = BWRasterPacked.nextSetBit(row, 0, 0, width);
+            while (s < width) {
+                int e = BWRasterPacked.nextClearBit(row, 0, s, width);
+
+                while (above < aboveEnd && end[above] <= s) {
+                    above++;
+                }
+                int l = -1;
+                for (int a = above; a < aboveEnd && start[a] < e; a++) {
+                    if (l < 0) {
+                        l = find(parent, label[a]);
+                    } else {
+                        l = union(parent, l, label[a]);
+                    }
+                }
+                if (l < 0) {
+                    if (labels == parent.length) {
+                        parent = Arrays.copyOf(parent, 2 * labels);
+                    }
+                    parent[labels] = labels;
+                    l = labels++;
+                }
+
+                if (runCount == start.length) {
+                    start = Arrays.copyOf(start, 2 * runCount);
+                    end = Arrays.copyOf(end, 2 * runCount);
+                    label = Arrays.copyOf(label, 2 * runCount);
+                }
+                start[runCount] = s;
+                end[runCount] = e;
+                label[runCount] = l;
+                runCount++;
+
+                s = BWRasterPacked.nextSetBit(row, 0, e, width);
+            }
+        }
+        rows[height] = runCount;
+
+        /* Second pass: final labels of the equivalence classes. */
+        int count = 0;
+        int[] finalLabel = new int[labels];
+        for (int l = 0; l < labels; l++) {
+            finalLabel[l] = parent[l] == l ? ++count : finalLabel[find(parent, l)];
+        }
+        sizes = new long[count + 1];
+        for (int k = 0; k < runCount; k++) {
+            label[k] = finalLabel[find(parent, label[k])];
+            sizes[label[k]] += end[k] - start[k];
+        }
+        start = Arrays.copyOf(start, runCount);
+        end = Arrays.copyOf(end, runCount);
+        label = Arrays.copyOf(label, runCount);
+    }
+
+    /**
+     * Returns the representative of the class of the specified label, halving
+     * the path to it.
+     *
+     * @param parent parent of each label
+     * @param l the label
+     * @return the representative of the class of the label
+     */
+    private static int find(int[] parent, int l) {
+        while (parent[l] != l) {
+            parent[l] = parent[parent[l]];
+            l = parent[l];
+        }
+        return l;
+    }
+
+    /**
+     * Joins the class of the representative <tt>root</tt> and the class of the
+     * label <tt>l</tt>, keeping the smaller representative, which is returned.
+     *
+     * @param parent parent of each label
+     * @param root the representative of a class
+     * @param l a label
+     * @return the representative of the joined class
+     */
+    private static int union(int[] parent, int root, int l) {
+        int other = find(parent, l);
+        if (other < root) {
+            parent[root] = other;
+            return other;
+        }
+        parent[other] = root;
+        return root;
+    }
+
+    /**
+     * Returns the number of connected components of the raster.
+     *
+     * @return the number of connected components
+     */
+    public int getCount() {
+        return sizes.length - 1;
+    }
+
+    /**
+     * Returns the label of the component of the pixel at <tt>(x, y)</tt>, or
+     * <tt>0</tt> if the pixel is turned off.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return the label of the component of the pixel
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     */
+    public int getLabel(int x, int y) {
+        if (   x < 0 || x >= width
+            || y < 0 || y >= height) {
+            throw new IllegalArgumentException(
+                "Invalid pixel: (" + x + ", " + y + ")");
+        }
+
+        int lo = rows[y];
+        int hi = rows[y + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (end[mid] <= x) {
+                lo = mid + 1;
+            } else if (start[mid] > x) {
+                hi = mid - 1;
+            } else {
+                return label[mid];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of pixels of the component with the specified label.
+     *
+     * @param label the label of the component
+     * @return the number of pixels of the component
+     * @throws IndexOutOfBoundsException if the label is invalid
+     */
+    public long getSize(int label) {
+        if (label < 1 || label >= sizes.length) {
+            throw new IndexOutOfBoundsException("Invalid label: " + label);
+        }
+        return sizes[label];
+    }
+
+}
@@ -0,0 +1,205 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import java.util.Arrays;
+
+/**
+ * A scanline flood fill of a {@linkplain BWRaster}. The fill turns on the
+ * region of turned off pixels containing a seed pixel, where two pixels are
+ * connected if they are neighbours in a row or in a column. A region enclosed
+ * by the outline of a shape is filled by seeding it with any pixel inside the
+ * outline.
+ * <p>
+ * The fill never recurses. It keeps a stack of seed pixels, and each seed
+ * taken from the stack is extended to the whole run of turned off pixels
+ * around it, which is turned on at once. The runs of turned off pixels
+ * touching the filled run in the rows above and below it are pushed as new
+ * seeds, one seed per run. The stack therefore holds runs rather than pixels,
+ * and each pixel of the region is tested a constant number of times.
+ * <p>
+ * The runs of a {@linkplain BWRasterPacked packed raster} are found and turned
+ * on a word at a time.
+ *
+ * @author Mario Bobic
+ */
+public class FloodFill {
+
+    /**
+     * Disable instantiation.
+     */
+    private FloodFill() {
+    }
+
+    /**
+     * Turns on the region of turned off pixels of the raster containing the
+     * pixel at <tt>(x, y)</tt>, and returns the number of turned on pixels.
+     * Nothing is filled if the pixel is already turned on.
+     *
+     * @param r the raster to be filled
+     * @param x the x coordinate of the seed pixel
+     * @param y the y coordinate of the seed pixel
+     * @return the number of pixels turned on by the fill
+     * @throws IllegalArgumentException if the raster is null or the pixel is
+     *         not within raster limits
+     */
+    public static long fill(BWRaster r, int x, int y) {
+        if (r == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+        if (r.isTurnedOn(x, y)) {
+            return 0;
+        }
+
+        if (r instanceof BWRasterPacked) {
+            return fillPacked((BWRasterPacked) r, x, y);
+        }
+
+        int width = r.getWidth();
+        int height = r.getHeight();
+        SeedStack stack = new SeedStack();
+        stack.push(x, y);
+
+        long filled = 0;
+        while (!stack.isEmpty()) {
+            int sy = stack.popY();
+            int sx = stack.popX();
+            if (r.isTurnedOn(sx, sy)) {
+                continue;
+            }
+
+            int left = sx;
+            while (left > 0 && !r.isTurnedOn(left - 1, sy)) {
+                left--;
+            }
+            int right = sx + 1;
+            while (right < width && !r.isTurnedOn(right, sy)) {
+                right++;
+            }
+            for (int i = left; i < right; i++) {
+                r.turnOn(i, sy);
+            }
+            filled += right - left;
+
+            for (int ny = sy - 1; ny <= sy + 1; ny += 2) {
+                if (ny < 0 || ny >= height) {
+                    continue;
+                }
+                boolean inRun = false;
+                for (int i = left; i < right; i++) {
+                    boolean off = !r.isTurnedOn(i, ny);
+                    if (off && !inRun) {
+                        stack.push(i, ny);
+                    }
+                    inRun = off;
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Fills a packed raster, finding and turning on the runs of its rows a
+     * word at a time.
+     *
+     * @param r the raster to be filled
+     * @param x the x coordinate of the turned off seed pixel
+     * @param y the y coordinate of the turned off seed pixel
+     * @return the number of pixels turned on by the fill
+     */
+    private static long fillPacked(BWRasterPacked r, int x, int y) {
+        int width = r.getWidth();
+        int height = r.getHeight();
+        long[] words = r.words;
+        int wordsPerRow = r.wordsPerRow;
+        SeedStack stack = new SeedStack();
+        stack.push(x, y);
+
+        long filled = 0;
+        while (!stack.isEmpty()) {
+            int sy = stack.popY();
+            int sx = stack.popX();
+            int offset = sy * wordsPerRow;
+            if ((words[offset + (sx >>> 6)] & (1L << sx)) != 0) {
+                continue;
+            }
+
+            int left = sx == 0 ? 0 : BWRasterPacked.previousSetBit(words, offset, sx - 1) + 1;
+            int right = BWRasterPacked.nextSetBit(words, offset, sx, width);
+            BWRasterPacked.setBits(words, offset, left, right);
+            filled += right - left;
+
+            for (int ny = sy - 1; ny <= sy + 1; ny += 2) {
+                if (ny < 0 || ny >= height) {
+                    continue;
+                }
+                int nextOffset = ny * wordsPerRow;
+                int i = BWRasterPacked.nextClearBit(words, nextOffset, left, right);
+                while (i < right) {
+                    stack.push(i, ny);
+                    i = BWRasterPacked.nextSetBit(words, nextOffset, i, right);
+                    i = BWRasterPacked.nextClearBit(words, nextOffset, i, right);
+                }
+            }
+        }
+
+        r.modified();
+        return filled;
+    }
+
+    /**
+     * A growable stack of seed pixels, kept as pairs of coordinates in a
+     * single array.
+     *
+     * @author Mario Bobic
+     */
+    private static class SeedStack {
+
+        /** The coordinates of the seeds, x before y. */
+        private int[] seeds = new int[64];
+        /** Number of coordinates on the stack. */
+        private int size;
+
+        /**
+         * Pushes the pixel at <tt>(x, y)</tt> on the stack.
+         *
+         * @param x the x coordinate of the pixel
+         * @param y the y coordinate of the pixel
+         */
+        public void push(int x, int y) {
+            if (size + 2 > seeds.length) {
+                seeds = Arrays.copyOf(seeds, 2 * seeds.length);
+            }
+            seeds[size++] = x;
+            seeds[size++] = y;
+        }
+
+        /**
+         * Pops the y coordinate of the top pixel, which must be followed by
+         * popping its x coordinate.
+         *
+         * @return the y coordinate of the top pixel
+         */
+        public int popY() {
+            return seeds[--size];
+        }
+
+        /**
+         * Pops the x coordinate of the top pixel, after its y coordinate.
+         *
+         * @return the x coordinate of the top pixel
+         */
+        public int popX() {
+            return seeds[--size];
+        }
+
+        /**
+         * Returns true if the stack is empty.
+         *
+         * @return true if the stack is empty
+         */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+    }
+
+}
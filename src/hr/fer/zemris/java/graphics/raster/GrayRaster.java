@@ -0,0 +1,77 @@
+package hr.fer.zemris.java.graphics.raster;
+
+/**
+ * This interface is an abstraction for all raster devices of fixed width and
+ * height for which each pixel holds a level of gray from <tt>0</tt> (black)
+ * to {@value #MAX_COVERAGE} (white). The level of a pixel is the coverage of
+ * the pixel, the part of the pixel covered by the shapes drawn on it.
+ * <p>
+ * As opposed to a {@linkplain BWRaster}, which can only tell whether a pixel
+ * is covered or not, a gray raster can show the edges of shapes smoothly.
+ *
+ * @author Mario Bobic
+ */
+public interface GrayRaster {
+
+    /** The coverage of a pixel that is fully covered. */
+    int MAX_COVERAGE = 255;
+
+    /**
+     * Returns the width dimension of the raster.
+     *
+     * @return the width dimension of the raster
+     */
+    int getWidth();
+
+    /**
+     * Returns the height dimension of the raster.
+     *
+     * @return the height dimension of the raster
+     */
+    int getHeight();
+
+    /**
+     * Sets the coverage of <b>all</b> pixels in the raster to <tt>0</tt>.
+     */
+    void clear();
+
+    /**
+     * Returns the coverage of the pixel specified by the <tt>x</tt> and
+     * <tt>y</tt> coordinates, a value from <tt>0</tt> to
+     * {@value #MAX_COVERAGE}.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return the coverage of the specified pixel
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     */
+    int getCoverage(int x, int y);
+
+    /**
+     * Sets the coverage of the pixel specified by the <tt>x</tt> and
+     * <tt>y</tt> coordinates.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param coverage the coverage to be set
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     *         or the coverage is not within <tt>[0, MAX_COVERAGE]</tt>
+     */
+    void setCoverage(int x, int y, int coverage);
+
+    /**
+     * Adds the specified coverage to the pixel specified by the <tt>x</tt> and
+     * <tt>y</tt> coordinates. The added coverage only covers the part of the
+     * pixel that is not covered yet, so the coverage <tt>c</tt> of the pixel
+     * becomes <tt>c + coverage*(MAX_COVERAGE-c)/MAX_COVERAGE</tt>, rounded to
+     * the nearest integer.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param coverage the coverage to be added
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     *         or the coverage is not within <tt>[0, MAX_COVERAGE]</tt>
+     */
+    void addCoverage(int x, int y, int coverage);
+
+}
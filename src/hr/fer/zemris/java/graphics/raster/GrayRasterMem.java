@@ -0,0 +1,117 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import java.util.Arrays;
+
+/**
+ * This class is an implementation of a {@linkplain GrayRaster} which keeps the
+ * coverage of each pixel in a single byte, one row after another.
+ *
+ * @author Mario Bobic
+ */
+public class GrayRasterMem implements GrayRaster {
+
+    /** The width dimension of this raster. */
+    private int width;
+    /** The height dimension of this raster. */
+    private int height;
+    /**
+     * Coverage of the pixels as unsigned bytes, where the pixel at
+     * <tt>(x, y)</tt> is at index <tt>y*width + x</tt>.
+     */
+    private byte[] pixels;
+
+    /**
+     * Constructs a new instance of GrayRasterMem with the specified width and
+     * height. Both width and height must be greater than 0 and the raster
+     * must not have more than <tt>Integer.MAX_VALUE</tt> pixels.
+     * All pixels are initially not covered.
+     *
+     * @param width the width dimension of this raster
+     * @param height the height dimension of this raster
+     * @throws IllegalArgumentException if the width or height is invalid
+     */
+    public GrayRasterMem(int width, int height) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Invalid width: " + width);
+        }
+        if (height < 1) {
+            throw new IllegalArgumentException("Invalid height: " + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Raster too large: " + width + "x" + height);
+        }
+
+        this.width = width;
+        this.height = height;
+        pixels = new byte[width * height];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pixels, (byte) 0);
+    }
+
+    @Override
+    public int getCoverage(int x, int y) {
+        checkPixel(x, y);
+        return pixels[y*width + x] & 0xFF;
+    }
+
+    @Override
+    public void setCoverage(int x, int y, int coverage) {
+        checkPixel(x, y);
+        checkCoverage(coverage);
+        pixels[y*width + x] = (byte) coverage;
+    }
+
+    @Override
+    public void addCoverage(int x, int y, int coverage) {
+        checkPixel(x, y);
+        checkCoverage(coverage);
+        int c = pixels[y*width + x] & 0xFF;
+        int added = (coverage * (MAX_COVERAGE - c) + MAX_COVERAGE/2) / MAX_COVERAGE;
+        pixels[y*width + x] = (byte) (c + added);
+    }
+
+    /**
+     * Checks if the <tt>x</tt> and <tt>y</tt> coordinates are <b>not</b> in
+     * limits of the raster and throws an {@linkplain IllegalArgumentException}
+     * if the test returns true.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @throws IllegalArgumentException if the pixel is not within raster limits
+     */
+    private void checkPixel(int x, int y) {
+        if (   x < 0 || x >= width
+            || y < 0 || y >= height) {
+            throw new IllegalArgumentException(
+                "Invalid pixel: (" + x + ", " + y + ")");
+        }
+    }
+
+    /**
+     * Checks if the specified coverage is <b>not</b> within
+     * <tt>[0, MAX_COVERAGE]</tt> and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     *
+     * @param coverage the coverage to be checked
+     * @throws IllegalArgumentException if the coverage is invalid
+     */
+    private static void checkCoverage(int coverage) {
+        if (coverage < 0 || coverage > MAX_COVERAGE) {
+            throw new IllegalArgumentException("Invalid coverage: " + coverage);
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package hr.fer.zemris.java.graphics.raster;
+
+/**
+ * A summed-area table of a {@linkplain BWRaster}, which answers how many
+ * pixels are turned on in any rectangle of the raster in constant time. The
+ * table holds, for each point <tt>(x, y)</tt>, the number of turned on pixels
+ * above and left of it, so the count of a rectangle is a combination of the
+ * entries at its four corners.
+ * <p>
+ * The table is computed row by row from the words of a packed row of the
+ * raster. The pixels of a {@linkplain BWRasterPacked packed raster} are
+ * already in words, while the rows of other rasters are packed first. The
+ * count of the turned on pixels of a row up to a point is the number of
+ * bits of the words before the point and of the word containing it, masked
+ * up to the point.
+ * <p>
+ * The table is computed lazily, on the first query after it has been
+ * {@linkplain #invalidate() invalidated}. A table of a packed raster
+ * invalidates itself when the raster is modified. The rasters which do not
+ * count their modifications must be followed by a call of
+ * {@linkplain #invalidate()} after they are modified.
+ *
+ * @author Mario Bobic
+ */
+public class SummedAreaTable {
+
+    /** The raster of this table. */
+    private final BWRaster raster;
+    /** The width dimension of the raster. */
+    private final int width;
+    /** The height dimension of the raster. */
+    private final int height;
+    /**
+     * Number of turned on pixels above and left of each point, where the
+     * point <tt>(x, y)</tt> is at index <tt>y*(width+1) + x</tt>.
+     */
+    private final int[] sums;
+    /** True if the sums are up to date. */
+    private boolean valid;
+    /** The modification count of a packed raster the sums are computed for. */
+    private int expectedModCount;
+
+    /**
+     * Constructs a new summed-area table of the specified raster. The table
+     * is computed on the first query.
+     *
+     * @param raster the raster of this table
+     * @throws IllegalArgumentException if the raster is null or too large
+     */
+    public SummedAreaTable(BWRaster raster) {
+        if (raster == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+        this.raster = raster;
+        this.width = raster.getWidth();
+        this.height = raster.getHeight();
+        if (((long) width + 1) * ((long) height + 1) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Raster too large: " + width + "x" + height);
+        }
+        sums = new int[(width + 1) * (height + 1)];
+    }
+
+    /**
+     * Returns the raster of this table.
+     *
+     * @return the raster of this table
+     */
+    public BWRaster getRaster() {
+        return raster;
+    }
+
+    /**
+     * Marks this table as stale, so that it is computed again on the next
+     * query. This method must be called after the raster is modified, unless
+     * it is a {@linkplain BWRasterPacked packed raster}.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns the number of turned on pixels of the raster.
+     *
+     * @return the number of turned on pixels of the raster
+     */
+    public int count() {
+        return count(0, 0, width, height);
+    }
+
+    /**
+     * Returns the number of turned on pixels of the raster in the specified
+     * rectangle. The parts of the rectangle outside of the raster are ignored.
+     *
+     * @param x the x coordinate of the top left pixel of the rectangle
+     * @param y the y coordinate of the top left pixel of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     * @return the number of turned on pixels in the rectangle
+     * @throws IllegalArgumentException if the width or height is negative
+     */
+    public int count(int x, int y, int w, int h) {
+        if (w < 0 || h < 0) {
+            throw new IllegalArgumentException("Invalid rectangle size: " + w + "x" + h);
+        }
+        int fromX = Math.max(x, 0);
+        int fromY = Math.max(y, 0);
+        int toX = (int) Math.min((long) x + w, width);
+        int toY = (int) Math.min((long) y + h, height);
+        if (fromX >= toX || fromY >= toY) {
+            return 0;
+        }
+
+        update();
+        int stride = width + 1;
+        return sums[toY*stride + toX] - sums[fromY*stride + toX]
+             - sums[toY*stride + fromX] + sums[fromY*stride + fromX];
+    }
+
+    /**
+     * Computes the table if it has been invalidated or its packed raster has
+     * been modified.
+     */
+    private void update() {
+        BWRasterPacked packed = raster instanceof BWRasterPacked ? (BWRasterPacked) raster : null;
+        if (valid && (packed == null || packed.getModificationCount() == expectedModCount)) {
+            return;
+        }
+
+        int stride = width + 1;
+        int wordsPerRow = (width + 63) >>> 6;
+        long[] row = new long[wordsPerRow];
+
+        for (int y = 0; y < height; y++) {
+            BWRasterPacked.pack(raster, y, row);
+
+            int above = y*stride;
+            int index = above + stride;
+            int running = 0;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = row[i];
+                int bits = Math.min(64, width - (i << 6));
+                for (int b = 0; b < bits; b++) {
+                    int inRow = running + Long.bitCount(word & (-1L >>> (63 - b)));
+                    sums[++index] = sums[++above] + inRow;
+                }
+                running += Long.bitCount(word);
+            }
+        }
+
+        valid = true;
+        if (packed != null) {
+            expectedModCount = packed.getModificationCount();
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package hr.fer.zemris.java.graphics.shapes;
 
+import java.math.BigInteger;
+
 import hr.fer.zemris.java.graphics.raster.BWRaster;
 
 /**
@@ -63,6 +65,7 @@ public abstract class AbstractOval extends GeometricShape {
      */
     public void setCenterX(int cx) {
         this.cx = cx;
+        invalidate();
     }
 
     /**
@@ -81,6 +84,7 @@ public abstract class AbstractOval extends GeometricShape {
      */
     public void setCenterY(int cy) {
         this.cy = cy;
+        invalidate();
     }
 
     /**
@@ -99,6 +103,7 @@ public abstract class AbstractOval extends GeometricShape {
      */
     protected void setRadiusX(int rx) {
         this.rx = processRadius(rx);
+        invalidate();
     }
 
     /**
@@ -117,6 +122,7 @@ public abstract class AbstractOval extends GeometricShape {
      */
     protected void setRadiusY(int ry) {
         this.ry = processRadius(ry);
+        invalidate();
     }
 
     /**
@@ -159,17 +165,114 @@ public abstract class AbstractOval extends GeometricShape {
         }
     }
 
+    /**
+     * Draws the outline of the object derived from this class, clipped to the
+     * raster. The outline is computed from the span table of the oval, one
+     * or two spans per row, so only the pixels of the outline are visited. An
+     * oval too large for a span table is outlined by the default method.
+     */
+    @Override
+    public void drawOutline(BWRaster r, int strokeWidth) {
+        checkStrokeWidth(strokeWidth);
+        SpanTable table = spans();
+        if (table == null) {
+            super.drawOutline(r, strokeWidth);
+            return;
+        }
+        table.outline(strokeWidth).draw(r, originX(), originY());
+    }
+
     /**
      * {@inheritDoc}
      * <p>
      * Returns true if the point specified by <tt>x</tt> and <tt>y</tt>
-     * coordinates belong to the oval.
+     * coordinates belong to the oval. The test is exact, as it is done in
+     * integer arithmetic only.
      */
     @Override
     public boolean containsPoint(int x, int y) {
-        double arg1 = 1.0*(x - cx)*(x - cx) / (rx*rx);
-        double arg2 = 1.0*(y - cy)*(y - cy) / (ry*ry);
-        return (arg1 + arg2) <= 1;
+        return contains((long) x - cx, (long) y - cy, rx, ry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The points are looked up in the span table of the oval, which holds the
+     * extent of each row and is shared by all ovals of equal radii. A point is
+     * therefore tested by a subtraction and two comparisons, without any
+     * multiplication. Ovals too large for a table are tested point by point.
+     */
+    @Override
+    public void containsPoints(int[] xs, int[] ys, boolean[] out) {
+        SpanTable table = spans();
+        if (table == null) {
+            super.containsPoints(xs, ys, out);
+            return;
+        }
+        checkPoints(xs, ys, out);
+        int[] start = table.start;
+        int[] end = table.end;
+
+        for (int i = 0; i < xs.length; i++) {
+            long row = (long) ys[i] - cy + ry;
+            long dx = (long) xs[i] - cx;
+            out[i] = row >= 0 && row <= 2L*ry
+                    && dx >= start[(int) row] && dx < end[(int) row];
+        }
+    }
+
+    @Override
+    SpanTable spans() {
+        if (rx > SpanTable.MAX_EXTENT || 2L*ry + 1 > SpanTable.MAX_EXTENT) {
+            return null;
+        }
+        return SpanTable.forOval(rx, ry);
+    }
+
+    @Override
+    int originX() {
+        return cx;
+    }
+
+    @Override
+    int originY() {
+        return cy;
+    }
+
+    /**
+     * Returns true if the point at the offset (<tt>dx</tt>, <tt>dy</tt>) from
+     * the center belongs to an oval with the specified radii, or more
+     * formally, if <tt>dx^2 * ry^2 + dy^2 * rx^2 &lt;= rx^2 * ry^2</tt>. This
+     * test is shared by {@linkplain #containsPoint(int, int)} and the
+     * {@linkplain SpanTable span tables} of ovals, so both always agree.
+     * <p>
+     * The test is done in <tt>long</tt> arithmetic, unless the product of the
+     * radii is so large that the terms could overflow, which only happens for
+     * ovals far larger than any raster.
+     *
+     * @param dx horizontal offset of the point from the center
+     * @param dy vertical offset of the point from the center
+     * @param rx the horizontal radius of the oval
+     * @param ry the vertical radius of the oval
+     * @return true if the point belongs to the oval
+     */
+    static boolean contains(long dx, long dy, int rx, int ry) {
+        dx = Math.abs(dx);
+        dy = Math.abs(dy);
+        if (dx > rx || dy > ry) {
+            return false;
+        }
+
+        long rx2 = (long) rx * rx;
+        long ry2 = (long) ry * ry;
+        if ((long) rx * ry <= Integer.MAX_VALUE) {
+            /* No term exceeds (rx*ry)^2, so the sum of two fits in a long. */
+            return dx*dx*ry2 + dy*dy*rx2 <= rx2*ry2;
+        }
+
+        BigInteger left = BigInteger.valueOf(dx*dx).multiply(BigInteger.valueOf(ry2))
+                .add(BigInteger.valueOf(dy*dy).multiply(BigInteger.valueOf(rx2)));
+        return left.compareTo(BigInteger.valueOf(rx2).multiply(BigInteger.valueOf(ry2))) <= 0;
     }
 
 }
@@ -64,6 +64,7 @@ public abstract class AbstractQuadrangle extends GeometricShape {
      */
     public void setX(int x) {
         this.x = x;
+        invalidate();
     }
 
     /**
@@ -83,6 +84,7 @@ public abstract class AbstractQuadrangle extends GeometricShape {
      */
     public void setY(int y) {
         this.y = y;
+        invalidate();
     }
 
     /**
@@ -101,6 +103,7 @@ public abstract class AbstractQuadrangle extends GeometricShape {
      */
     protected void setWidth(int w) {
         this.w = processSize(w);
+        invalidate();
     }
 
     /**
@@ -119,6 +122,7 @@ public abstract class AbstractQuadrangle extends GeometricShape {
      */
     protected void setHeight(int h) {
         this.h = processSize(h);
+        invalidate();
     }
 
     /**
@@ -149,8 +153,8 @@ public abstract class AbstractQuadrangle extends GeometricShape {
         int startX = Math.max(x, 0);
         int startY = Math.max(y, 0);
 
-        int endX = Math.min(x + w, r.getWidth());
-        int endY = Math.min(y + h, r.getHeight());
+        int endX = (int) Math.min((long) x + w, r.getWidth());
+        int endY = (int) Math.min((long) y + h, r.getHeight());
 
         for (int x = startX; x < endX; x++) {
             for (int y = startY; y < endY; y++) {
@@ -159,6 +163,23 @@ public abstract class AbstractQuadrangle extends GeometricShape {
         }
     }
 
+    /**
+     * Draws the outline of the object derived from this class, clipped to the
+     * raster. The outline is computed from the span table of the quadrangle, one
+     * or two spans per row, so only the pixels of the outline are visited. A
+     * quadrangle too tall for a span table is outlined by the default method.
+     */
+    @Override
+    public void drawOutline(BWRaster r, int strokeWidth) {
+        checkStrokeWidth(strokeWidth);
+        SpanTable table = spans();
+        if (table == null) {
+            super.drawOutline(r, strokeWidth);
+            return;
+        }
+        table.outline(strokeWidth).draw(r, originX(), originY());
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -169,10 +190,46 @@ public abstract class AbstractQuadrangle extends GeometricShape {
     public boolean containsPoint(int x, int y) {
         if (x < this.x) return false;
         if (y < this.y) return false;
-        if (x >= this.x+w) return false;
-        if (y >= this.y+h) return false;
+        if (x >= (long) this.x+w) return false;
+        if (y >= (long) this.y+h) return false;
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each point is tested by four range compares which are combined without
+     * branching, so the loop can be compiled into vector instructions.
+     */
+    @Override
+    public void containsPoints(int[] xs, int[] ys, boolean[] out) {
+        checkPoints(xs, ys, out);
+        int left = x;
+        int top = y;
+        int width = w;
+        int height = h;
+
+        for (int i = 0; i < xs.length; i++) {
+            long dx = (long) xs[i] - left;
+            long dy = (long) ys[i] - top;
+            out[i] = (dx >= 0) & (dx < width) & (dy >= 0) & (dy < height);
+        }
+    }
+
+    @Override
+    SpanTable spans() {
+        return h > SpanTable.MAX_EXTENT ? null : SpanTable.forQuadrangle(w, h);
+    }
+
+    @Override
+    int originX() {
+        return x;
+    }
+
+    @Override
+    int originY() {
+        return y;
+    }
+
 }
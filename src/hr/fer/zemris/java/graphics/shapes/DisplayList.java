@@ -0,0 +1,154 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import hr.fer.zemris.java.custom.collections.Collection;
+import hr.fer.zemris.java.custom.collections.Processor;
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+
+/**
+ * A display list is a compiled scene of {@link GeometricShape geometric
+ * shapes}, ready to be rendered on a {@linkplain BWRaster} any number of times.
+ * The scene is given as a collection of shapes and <code>null</code>
+ * references, where each <code>null</code> reference toggles the flip mode of
+ * the raster, just as in the {@linkplain hr.fer.zemris.java.graphics.Demo
+ * Demo}.
+ * <p>
+ * Compiling a shape turns it into a {@linkplain SpanTable span table}, which
+ * holds the horizontal spans of covered pixels of each row. Rendering a
+ * compiled shape only turns on the pixels of its spans, clipped to the raster,
+ * without a single {@link GeometricShape#containsPoint containsPoint} test.
+ * Span tables do not depend on the position of a shape, so all ovals with
+ * equal radii share one table.
+ * <p>
+ * The sequence of shapes of a display list is fixed when it is constructed,
+ * but the shapes themselves may still be changed. Every setter of a shape
+ * {@linkplain GeometricShape#invalidate() invalidates} it, and a changed shape
+ * is recompiled on the next render. Shapes which can not be described by spans
+ * are drawn by their own {@linkplain GeometricShape#draw(BWRaster)} method.
+ *
+ * @author Mario Bobic
+ */
+public class DisplayList {
+
+    /** The compiled entries, in the order of drawing. */
+    private final Entry[] entries;
+
+    /**
+     * Constructs a new display list of the shapes in the specified collection,
+     * in the order in which the collection sends them to a processor. The
+     * shapes are compiled as they are sent, without copying the collection.
+     *
+     * @param shapes collection of shapes and <code>null</code> flip markers
+     * @throws IllegalArgumentException if the collection is null or contains
+     *         an object which is not a geometric shape
+     */
+    public DisplayList(Collection shapes) {
+        if (shapes == null) {
+            throw new IllegalArgumentException("Shapes must not be null.");
+        }
+
+        entries = new Entry[shapes.size()];
+        shapes.forEach(new Processor() {
+            /** Index of the next entry. */
+            private int index;
+
+            @Override
+            public void process(Object shape) {
+                if (shape != null && !(shape instanceof GeometricShape)) {
+                    throw new IllegalArgumentException("Not a geometric shape: " + shape);
+                }
+                entries[index++] = new Entry((GeometricShape) shape);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of shapes and flip markers of this display list.
+     *
+     * @return the number of entries of this display list
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Renders this display list on the specified raster. Shapes that have
+     * been changed since the last render are recompiled first. Each flip
+     * marker toggles the flip mode, starting with the flip mode disabled, and
+     * the flip mode is disabled again after the last entry.
+     *
+     * @param r the raster on which the shapes are rendered
+     * @throws IllegalArgumentException if the raster is null
+     */
+    public void render(BWRaster r) {
+        if (r == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+
+        boolean flipped = false;
+        for (Entry entry : entries) {
+            if (entry.shape == null) {
+                flipped = !flipped;
+                if (flipped) {
+                    r.enableFlipMode();
+                } else {
+                    r.disableFlipMode();
+                }
+                continue;
+            }
+
+            if (entry.version != entry.shape.version()) {
+                entry.compile();
+            }
+            if (entry.table == null) {
+                entry.shape.draw(r);
+            } else {
+                entry.table.draw(r, entry.originX, entry.originY);
+            }
+        }
+
+        if (flipped) {
+            r.disableFlipMode();
+        }
+    }
+
+    /**
+     * A compiled shape or a flip marker of a display list.
+     */
+    private static class Entry {
+
+        /** The shape, or <code>null</code> for a flip marker. */
+        private final GeometricShape shape;
+        /** Version of the shape when it was compiled. */
+        private int version;
+        /** Span table of the shape, or <code>null</code> if it has none. */
+        private SpanTable table;
+        /** The x coordinate of the origin of the span table. */
+        private int originX;
+        /** The y coordinate of the origin of the span table. */
+        private int originY;
+
+        /**
+         * Constructs and compiles a new entry of the specified shape.
+         *
+         * @param shape the shape, or <code>null</code> for a flip marker
+         */
+        public Entry(GeometricShape shape) {
+            this.shape = shape;
+            if (shape != null) {
+                compile();
+            }
+        }
+
+        /**
+         * Compiles the current geometry of the shape of this entry.
+         */
+        private void compile() {
+            version = shape.version();
+            table = shape.spans();
+            originX = shape.originX();
+            originY = shape.originY();
+        }
+
+    }
+
+}
@@ -1,6 +1,9 @@
 package hr.fer.zemris.java.graphics.shapes;
 
+import java.util.BitSet;
+
 import hr.fer.zemris.java.graphics.raster.BWRaster;
+import hr.fer.zemris.java.graphics.raster.GrayRaster;
 
 /**
  * The abstract superclass from which all geometric shapes should be derived.
@@ -22,6 +25,26 @@ import hr.fer.zemris.java.graphics.raster.BWRaster;
  */
 public abstract class GeometricShape {
 
+    /** Number of transformed span tables kept in the cache of each shape. */
+    private static final int TRANSFORM_CACHE_SIZE = 8;
+
+    /**
+     * The number of times the geometry of this shape has been changed, used by
+     * a {@linkplain DisplayList} to detect that its spans are out of date.
+     */
+    private int version;
+    /**
+     * Span tables of this shape transformed by recently used transforms,
+     * clipped to the raster on which they were drawn.
+     */
+    private LruCache<Transform, SpanTable> transformed;
+    /** Version of this shape when the transformed span tables were computed. */
+    private int transformedVersion;
+    /** The width dimension of the raster the transformed tables are clipped to. */
+    private int transformedWidth;
+    /** The height dimension of the raster the transformed tables are clipped to. */
+    private int transformedHeight;
+
     /**
      * This method draws a filled image of the geometric shape (not only its
      * outline). The default method is the assumed drawing method for all
@@ -43,6 +66,195 @@ public abstract class GeometricShape {
         }
     }
 
+    /**
+     * This method draws the coverage of the geometric shape on a gray raster
+     * of a lower resolution. Each pixel of the raster stands for a square of
+     * <tt>factor*factor</tt> points of the shape, so the shape is drawn
+     * scaled down by the factor, and the coverage of the pixel is the part of
+     * the square which belongs to the shape. The coverage is added to the
+     * pixels, as specified by {@linkplain GrayRaster#addCoverage}.
+     * <p>
+     * Shapes described by spans compute the coverage directly from the ends of
+     * their spans, in time proportional to the number of spans and covered
+     * pixels of the raster rather than the number of points of the shape.
+     * Other shapes check each point of each square of the raster.
+     *
+     * @param r the raster on which the coverage is drawn
+     * @param factor number of points of the shape along each side of a pixel
+     * @throws IllegalArgumentException if the raster is null or the factor is
+     *         less than <tt>1</tt>
+     */
+    public void drawCoverage(GrayRaster r, int factor) {
+        if (r == null) {
+            throw new IllegalArgumentException("Raster must not be null.");
+        }
+        if (factor < 1) {
+            throw new IllegalArgumentException("Invalid factor: " + factor);
+        }
+
+        SpanTable table = spans();
+        if (table != null) {
+            table.coverage(r, originX(), originY(), factor);
+            return;
+        }
+
+        long area = (long) factor * factor;
+        int width = r.getWidth();
+        int height = r.getHeight();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                long covered = 0;
+                for (long i = (long) x * factor; i < (long) (x+1) * factor; i++) {
+                    for (long j = (long) y * factor; j < (long) (y+1) * factor; j++) {
+                        if (i <= Integer.MAX_VALUE && j <= Integer.MAX_VALUE
+                                && containsPoint((int) i, (int) j)) {
+                            covered++;
+                        }
+                    }
+                }
+                int coverage = (int) ((covered * GrayRaster.MAX_COVERAGE + area/2) / area);
+                if (coverage > 0) {
+                    r.addCoverage(x, y, coverage);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method draws a filled image of the geometric shape transformed by
+     * the specified transform. A pixel is turned on if its center, mapped back
+     * by the inverse transform, falls into a pixel of the shape. Drawing with
+     * the identity transform is therefore the same as calling
+     * {@linkplain #draw(BWRaster)}.
+     * <p>
+     * Shapes described by spans are rasterized into spans once per transform.
+     * The spans of the last few transforms are kept in a cache of each shape,
+     * so redrawing a shape with a transform used recently is a pure span
+     * blit. The spans are clipped to the raster, so the cache is cleared
+     * whenever the shape is changed or it is drawn on a raster of other
+     * dimensions. Other shapes check the whole raster of points.
+     *
+     * @param r the raster on which points are drawn
+     * @param t the transform applied to the shape
+     * @throws IllegalArgumentException if the transform is null
+     */
+    public void draw(BWRaster r, Transform t) {
+        if (t == null) {
+            throw new IllegalArgumentException("Transform must not be null.");
+        }
+
+        SpanTable table = transformedSpans(t, r.getWidth(), r.getHeight());
+        if (table != null) {
+            table.draw(r, 0, 0);
+            return;
+        }
+
+        Transform inverse = t.inverse();
+        int width = r.getWidth();
+        int height = r.getHeight();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (containsInverse(x, y, inverse)) {
+                    r.turnOn(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the specified (x, y) point belongs to this geometric shape
+     * transformed by the specified transform, which is true if the center of
+     * the point, mapped back by the inverse transform, falls into a point of
+     * this shape.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param t the transform applied to the shape
+     * @return true if the specified point belongs to the transformed shape
+     * @throws IllegalArgumentException if the transform is null
+     */
+    public boolean containsPoint(int x, int y, Transform t) {
+        if (t == null) {
+            throw new IllegalArgumentException("Transform must not be null.");
+        }
+        return containsInverse(x, y, t.inverse());
+    }
+
+    /**
+     * Checks if the center of the specified (x, y) point, mapped by the
+     * specified inverse transform, falls into a point of this shape.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param inverse the inverse of the transform applied to the shape
+     * @return true if the specified point belongs to the transformed shape
+     */
+    private boolean containsInverse(int x, int y, Transform inverse) {
+        double u = Math.floor(inverse.transformX(x + 0.5, y + 0.5));
+        double v = Math.floor(inverse.transformY(x + 0.5, y + 0.5));
+        if (u < Integer.MIN_VALUE || u > Integer.MAX_VALUE
+                || v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            return false;
+        }
+        return containsPoint((int) u, (int) v);
+    }
+
+    /**
+     * This method draws the outline of the geometric shape, one pixel wide.
+     * It is equivalent to calling {@link #drawOutline(BWRaster, int)
+     * drawOutline(r, 1)}.
+     *
+     * @param r the raster on which points are drawn
+     */
+    public void drawOutline(BWRaster r) {
+        drawOutline(r, 1);
+    }
+
+    /**
+     * This method draws the outline of the geometric shape with the specified
+     * stroke width. The outline lies inside of the shape: a point of the shape
+     * belongs to the outline unless the points at distance
+     * <tt>strokeWidth</tt> to its left, right, top and bottom all belong to
+     * the shape.
+     * <p>
+     * The default method checks the whole raster of points, just as the
+     * default {@linkplain #draw(BWRaster)} method does. It is recommended that
+     * all subclasses override this method.
+     *
+     * @param r the raster on which points are drawn
+     * @param strokeWidth the width of the outline
+     * @throws IllegalArgumentException if the stroke width is less than 1
+     */
+    public void drawOutline(BWRaster r, int strokeWidth) {
+        checkStrokeWidth(strokeWidth);
+        int width = r.getWidth();
+        int height = r.getHeight();
+        int w = strokeWidth;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (this.containsPoint(x, y) && !(
+                        this.containsPoint(x - w, y) && this.containsPoint(x + w, y) &&
+                        this.containsPoint(x, y - w) && this.containsPoint(x, y + w))) {
+                    r.turnOn(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the <tt>strokeWidth</tt> is less than <tt>1</tt> and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     *
+     * @param strokeWidth the stroke width to be checked
+     * @throws IllegalArgumentException if the stroke width is less than 1
+     */
+    static void checkStrokeWidth(int strokeWidth) {
+        if (strokeWidth < 1) {
+            throw new IllegalArgumentException("Invalid stroke width: " + strokeWidth);
+        }
+    }
+
     /**
      * Checks if specified (x, y) point belongs to this geometric shape and
      * returns a <tt>boolean</tt> value of the result. The general contract for
@@ -55,4 +267,207 @@ public abstract class GeometricShape {
      */
     public abstract boolean containsPoint(int x, int y);
 
+    /**
+     * Tests a batch of points at once. For each index <tt>i</tt>, sets
+     * <tt>out[i]</tt> to the result of {@link #containsPoint(int, int)
+     * containsPoint(xs[i], ys[i])}.
+     * <p>
+     * The default method simply calls {@linkplain #containsPoint(int, int)}
+     * for each point. Subclasses that can test many points faster than one by
+     * one should override it.
+     *
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @param out the array into which the results are stored
+     * @throws IllegalArgumentException if any of the arrays is null or the
+     *         arrays differ in length
+     */
+    public void containsPoints(int[] xs, int[] ys, boolean[] out) {
+        checkPoints(xs, ys, out);
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = containsPoint(xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Tests a batch of points at once and returns the set of indexes
+     * <tt>i</tt> for which the point <tt>(xs[i], ys[i])</tt> belongs to this
+     * geometric shape. The points are tested by the
+     * {@linkplain #containsPoints(int[], int[], boolean[])} method.
+     *
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @return the set of indexes of the points that belong to this shape
+     * @throws IllegalArgumentException if any of the arrays is null or the
+     *         arrays differ in length
+     */
+    public BitSet containsPoints(int[] xs, int[] ys) {
+        if (xs == null) {
+            throw new IllegalArgumentException("Arrays must not be null.");
+        }
+        boolean[] hits = new boolean[xs.length];
+        containsPoints(xs, ys, hits);
+
+        long[] words = new long[(hits.length + 63) >>> 6];
+        for (int i = 0; i < hits.length; i++) {
+            if (hits[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Tests all pixels turned on in the specified mask and returns the set of
+     * those that belong to this geometric shape. The pixel at <tt>(x, y)</tt>
+     * is represented by the index <tt>y*width + x</tt>, where <tt>width</tt>
+     * is the width of the mask, so the mask may have at most
+     * {@linkplain Integer#MAX_VALUE} pixels.
+     * <p>
+     * Shapes described by spans only visit the pixels of their spans, clipped
+     * to the mask. Other shapes check the whole mask, just as the default
+     * {@linkplain #draw(BWRaster)} method does.
+     *
+     * @param mask the raster whose turned on pixels are tested
+     * @return the set of indexes of the tested pixels that belong to this shape
+     * @throws IllegalArgumentException if the mask is null or it has more
+     *         pixels than a set can index
+     */
+    public BitSet containsPoints(BWRaster mask) {
+        if (mask == null) {
+            throw new IllegalArgumentException("Mask must not be null.");
+        }
+        if ((long) mask.getWidth() * mask.getHeight() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Mask too large: " + mask.getWidth() + "x" + mask.getHeight());
+        }
+
+        BitSet hits = new BitSet();
+        SpanTable table = spans();
+        if (table != null) {
+            table.hits(mask, originX(), originY(), hits);
+            return hits;
+        }
+
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (mask.isTurnedOn(x, y) && this.containsPoint(x, y)) {
+                    hits.set(y*width + x);
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Checks if any of the arrays given to
+     * {@linkplain #containsPoints(int[], int[], boolean[])} is null or if the
+     * arrays differ in length, and throws an
+     * {@linkplain IllegalArgumentException} if the test returns true.
+     *
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @param out the array into which the results are stored
+     * @throws IllegalArgumentException if any of the arrays is null or the
+     *         arrays differ in length
+     */
+    static void checkPoints(int[] xs, int[] ys, boolean[] out) {
+        if (xs == null || ys == null || out == null) {
+            throw new IllegalArgumentException("Arrays must not be null.");
+        }
+        if (xs.length != ys.length || xs.length != out.length) {
+            throw new IllegalArgumentException("Arrays differ in length: "
+                + xs.length + ", " + ys.length + ", " + out.length);
+        }
+    }
+
+    /**
+     * Marks the geometry of this shape as changed, so that every
+     * {@linkplain DisplayList} containing this shape recompiles its spans on
+     * the next render. All setters of this package call this method, and
+     * subclasses that change the geometry in any other way must call it too.
+     */
+    protected void invalidate() {
+        version++;
+    }
+
+    /**
+     * Returns the number of times the geometry of this shape has been changed.
+     *
+     * @return the version of the geometry of this shape
+     */
+    int version() {
+        return version;
+    }
+
+    /**
+     * Returns the span table of this shape relative to its
+     * {@linkplain #originX() origin}, or <code>null</code> if this shape can
+     * not be described by spans or it is too large for a table, as specified
+     * by {@linkplain SpanTable#MAX_EXTENT}. In that case, a
+     * {@linkplain DisplayList} falls back to the {@linkplain #draw(BWRaster)}
+     * method, which only visits the pixels of the raster.
+     *
+     * @return the span table of this shape, or <code>null</code>
+     */
+    SpanTable spans() {
+        return null;
+    }
+
+    /**
+     * Returns the span table of this shape transformed by the specified
+     * transform and clipped to a raster of the specified dimensions, relative
+     * to the point <tt>(0, 0)</tt>, or <code>null</code> if this shape can not
+     * be described by spans. Recently used tables are taken from the cache of
+     * this shape, which is cleared if the shape has been changed or the
+     * dimensions differ since they were computed.
+     *
+     * @param t the transform
+     * @param width the width dimension of the raster
+     * @param height the height dimension of the raster
+     * @return the transformed span table, or <code>null</code>
+     */
+    SpanTable transformedSpans(Transform t, int width, int height) {
+        if (transformed == null || transformedVersion != version
+                || transformedWidth != width || transformedHeight != height) {
+            transformed = new LruCache<>(TRANSFORM_CACHE_SIZE);
+            transformedVersion = version;
+            transformedWidth = width;
+            transformedHeight = height;
+        }
+
+        SpanTable table = transformed.get(t);
+        if (table == null) {
+            SpanTable spans = spans();
+            if (spans == null) {
+                return null;
+            }
+            table = spans.transform(originX(), originY(), t, width, height);
+            transformed.put(t, table);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the x coordinate of the point to which the
+     * {@linkplain #spans() span table} of this shape is relative.
+     *
+     * @return the x coordinate of the origin of this shape
+     */
+    int originX() {
+        return 0;
+    }
+
+    /**
+     * Returns the y coordinate of the point to which the
+     * {@linkplain #spans() span table} of this shape is relative.
+     *
+     * @return the y coordinate of the origin of this shape
+     */
+    int originY() {
+        return 0;
+    }
+
 }
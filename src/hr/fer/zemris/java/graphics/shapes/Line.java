@@ -0,0 +1,310 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import java.math.BigInteger;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+
+/**
+ * The class Line is a {@link GeometricShape geometric shape} that represents a
+ * line segment specified by the <tt>x</tt> and <tt>y</tt> coordinates of its
+ * two end points. This class offers one constructor and appropriate getters
+ * and setters.
+ * <p>
+ * The pixels of the line are chosen by the Bresenham algorithm: the line steps
+ * one pixel at a time along its major axis, which is the axis of the larger
+ * difference of the end point coordinates, and the coordinate along the minor
+ * axis is the one nearest to the ideal line, rounding halves away from the
+ * first end point. The minor coordinate of each step is computed directly from
+ * the step in integer arithmetic, so no floating-point arithmetic is involved
+ * and a line is drawn only in the rows of the raster, however long it is.
+ * <p>
+ * The pixels of a line form a single run in each row, so a line is turned
+ * into spans like any other shape. A line drawn with a greater
+ * {@link #drawOutline(BWRaster, int) stroke width} extends each of its pixels
+ * across the major axis, which keeps a single span per row.
+ *
+ * @author Mario Bobic
+ */
+public class Line extends GeometricShape {
+
+    /** The x coordinate of the first end point. */
+    private int x1;
+    /** The y coordinate of the first end point. */
+    private int y1;
+    /** The x coordinate of the second end point. */
+    private int x2;
+    /** The y coordinate of the second end point. */
+    private int y2;
+
+    /**
+     * Constructs a new instance of Line with the specified <tt>x</tt> and
+     * <tt>y</tt> coordinates of its end points.
+     *
+     * @param x1 the x coordinate of the first end point
+     * @param y1 the y coordinate of the first end point
+     * @param x2 the x coordinate of the second end point
+     * @param y2 the y coordinate of the second end point
+     */
+    public Line(int x1, int y1, int x2, int y2) {
+        super();
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    /**
+     * Returns the x coordinate of the first end point.
+     *
+     * @return the x coordinate of the first end point
+     */
+    public int getX1() {
+        return x1;
+    }
+
+    /**
+     * Sets the x coordinate of the first end point.
+     *
+     * @param x1 the x coordinate of the first end point to be set
+     */
+    public void setX1(int x1) {
+        this.x1 = x1;
+        invalidate();
+    }
+
+    /**
+     * Returns the y coordinate of the first end point.
+     *
+     * @return the y coordinate of the first end point
+     */
+    public int getY1() {
+        return y1;
+    }
+
+    /**
+     * Sets the y coordinate of the first end point.
+     *
+     * @param y1 the y coordinate of the first end point to be set
+     */
+    public void setY1(int y1) {
+        this.y1 = y1;
+        invalidate();
+    }
+
+    /**
+     * Returns the x coordinate of the second end point.
+     *
+     * @return the x coordinate of the second end point
+     */
+    public int getX2() {
+        return x2;
+    }
+
+    /**
+     * Sets the x coordinate of the second end point.
+     *
+     * @param x2 the x coordinate of the second end point to be set
+     */
+    public void setX2(int x2) {
+        this.x2 = x2;
+        invalidate();
+    }
+
+    /**
+     * Returns the y coordinate of the second end point.
+     *
+     * @return the y coordinate of the second end point
+     */
+    public int getY2() {
+        return y2;
+    }
+
+    /**
+     * Sets the y coordinate of the second end point.
+     *
+     * @param y2 the y coordinate of the second end point to be set
+     */
+    public void setY2(int y2) {
+        this.y2 = y2;
+        invalidate();
+    }
+
+    /**
+     * Draws the line, one pixel wide, clipped to the raster. A line has no
+     * inside, so this is the same as drawing its outline.
+     */
+    @Override
+    public void draw(BWRaster r) {
+        computeSpans(1, 0, r.getHeight(), 0, r.getWidth()).draw(r, 0, 0);
+    }
+
+    /**
+     * Draws the line with the specified stroke width, clipped to the raster.
+     * Each pixel of the line is extended to <tt>strokeWidth</tt> pixels across
+     * the major axis of the line, centered on the pixel.
+     */
+    @Override
+    public void drawOutline(BWRaster r, int strokeWidth) {
+        checkStrokeWidth(strokeWidth);
+        computeSpans(strokeWidth, 0, r.getHeight(), 0, r.getWidth()).draw(r, 0, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns true if the point specified by <tt>x</tt> and <tt>y</tt>
+     * coordinates is one of the pixels of the line, computed directly for the
+     * given point.
+     */
+    @Override
+    public boolean containsPoint(int x, int y) {
+        long dx = Math.abs((long) x2 - x1);
+        long dy = Math.abs((long) y2 - y1);
+        long i = (x2 >= x1 ? 1 : -1) * ((long) x - x1);
+        long k = (y2 >= y1 ? 1 : -1) * ((long) y - y1);
+
+        if (i < 0 || i > dx || k < 0 || k > dy) {
+            return false;
+        }
+        if (dx >= dy) {
+            return dx == 0 || scale(2*i, dy, dx, 2*dx) == k;
+        } else {
+            return scale(2*k, dx, dy, 2*dy) == i;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A line spanning more rows than {@linkplain SpanTable#MAX_EXTENT} has no
+     * table.
+     */
+    @Override
+    SpanTable spans() {
+        long dy = Math.abs((long) y2 - y1);
+        if (dy >= SpanTable.MAX_EXTENT) {
+            return null;
+        }
+        return computeSpans(1, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the span table of the line with the specified stroke width,
+     * with the origin at <tt>(0, 0)</tt>, clipped to the specified rows and
+     * columns.
+     * <p>
+     * The run of pixels of a row of the line is computed directly from the
+     * index of the row. A line stepping along the y axis has a single pixel in
+     * each row, which is widened to the stroke width. A line stepping along the
+     * x axis has a single pixel in each column, so the widened pixels of a row
+     * come from the runs of the rows up to half the stroke width away, whose
+     * union is a single span reaching from the first of these runs to the last.
+     *
+     * @param strokeWidth the stroke width
+     * @param minY the first row of the table, inclusive
+     * @param maxY the last row of the table, exclusive
+     * @param minX the first column of the table, inclusive
+     * @param maxX the last column of the table, exclusive
+     * @return the span table of the line
+     */
+    private SpanTable computeSpans(int strokeWidth, int minY, int maxY, int minX, int maxX) {
+        long dx = Math.abs((long) x2 - x1);
+        long dy = Math.abs((long) y2 - y1);
+        boolean xMajor = dx >= dy;
+
+        int lower = (strokeWidth - 1) / 2;
+        int upper = strokeWidth / 2;
+        long top = Math.min(y1, y2);
+        long widenY = xMajor ? lower : 0;
+        long widenX = xMajor ? 0 : lower;
+
+        long fromY = Math.max(top - widenY, minY);
+        long toY = Math.min(top + dy + (xMajor ? upper : 0) + 1, maxY);
+        if (fromY >= toY) {
+            return new SpanTable.Builder(0).build();
+        }
+
+        SpanTable.Builder builder = new SpanTable.Builder((int) fromY);
+        for (long y = fromY; y < toY; y++) {
+            /* The rows of the line, top-down, whose pixels reach this row. */
+            long first = Math.max(y - top - (xMajor ? upper : 0), 0);
+            long last = Math.min(y - top + widenY, dy);
+
+            long a = runStart(first, dx, dy);
+            long b = runEnd(first, dx, dy);
+            long c = runStart(last, dx, dy);
+            long d = runEnd(last, dx, dy);
+            long from = Math.min(Math.min(a, b), Math.min(c, d)) - widenX;
+            long to = Math.max(Math.max(a, b), Math.max(c, d)) + 1 + (xMajor ? 0 : upper);
+
+            builder.addSpan((int) Math.max(from, minX), (int) Math.min(to, maxX));
+            builder.nextRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the x coordinate of the first pixel of the run of the specified
+     * row of the line, counted top-down.
+     *
+     * @param row the row of the line, counted top-down
+     * @param dx the horizontal extent of the line
+     * @param dy the vertical extent of the line
+     * @return the x coordinate of the first pixel of the run
+     */
+    private long runStart(long row, long dx, long dy) {
+        long k = y2 >= y1 ? row : dy - row;
+        long i;
+        if (dx < dy) {
+            i = scale(2*k, dx, dy, 2*dy);
+        } else {
+            /* The first step whose row is not before the k-th. */
+            i = k == 0 ? 0 : scale(2*k - 1, dx, 2*dy - 1, 2*dy);
+        }
+        return x1 + (x2 >= x1 ? i : -i);
+    }
+
+    /**
+     * Returns the x coordinate of the last pixel of the run of the specified
+     * row of the line, counted top-down.
+     *
+     * @param row the row of the line, counted top-down
+     * @param dx the horizontal extent of the line
+     * @param dy the vertical extent of the line
+     * @return the x coordinate of the last pixel of the run
+     */
+    private long runEnd(long row, long dx, long dy) {
+        long k = y2 >= y1 ? row : dy - row;
+        long i;
+        if (dx < dy) {
+            i = scale(2*k, dx, dy, 2*dy);
+        } else if (k == dy) {
+            i = dx;
+        } else {
+            i = scale(2*k + 1, dx, 2*dy - 1, 2*dy) - 1;
+        }
+        return x1 + (x2 >= x1 ? i : -i);
+    }
+
+    /**
+     * Returns <tt>floor((a*b + c) / d)</tt> for non-negative <tt>a</tt>,
+     * <tt>b</tt> and <tt>c</tt> and a positive <tt>d</tt>. The terms are
+     * computed in long arithmetic, unless the product is so large that it could
+     * overflow, which only happens for lines far longer than any raster.
+     *
+     * @param a the first factor
+     * @param b the second factor
+     * @param c the addend
+     * @param d the divisor
+     * @return the quotient, rounded down
+     */
+    private static long scale(long a, long b, long c, long d) {
+        if (b == 0 || a <= (Long.MAX_VALUE - c) / b) {
+            return (a*b + c) / d;
+        }
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .add(BigInteger.valueOf(c)).divide(BigInteger.valueOf(d)).longValue();
+    }
+
+}
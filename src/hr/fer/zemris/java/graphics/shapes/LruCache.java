@@ -0,0 +1,38 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map of a limited size which evicts the least recently used entry when a
+ * new entry would exceed its capacity. It is used to cache the
+ * {@linkplain SpanTable span tables} of shapes.
+ *
+ * @author Mario Bobic
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum number of entries of this cache. */
+    private final int capacity;
+
+    /**
+     * Constructs a new empty cache of the specified capacity.
+     *
+     * @param capacity maximum number of entries of this cache
+     */
+    public LruCache(int capacity) {
+        super(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+
+}
@@ -0,0 +1,484 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import hr.fer.zemris.java.custom.collections.Collection;
+import hr.fer.zemris.java.custom.collections.Processor;
+
+/**
+ * An off-heap shape collection stores {@link GeometricShape geometric shapes}
+ * as fixed-size records in a direct {@linkplain ByteBuffer}, which is
+ * allocated outside of the heap managed by the garbage collector. A collection
+ * of a hundred million shapes therefore occupies two gigabytes of native
+ * memory, but only a few objects on the heap, which the garbage collector does
+ * not have to trace.
+ * <p>
+ * Each record consists of five <tt>int</tt> values: the type of the shape and
+ * its four parameters. For a {@linkplain Rectangle} these are its <tt>x</tt>
+ * and <tt>y</tt> coordinates, width and height, for a {@linkplain Square} its
+ * coordinates and size twice, for an {@linkplain Ellipse} the coordinates of
+ * its center and its radii, and for a {@linkplain Circle} the coordinates of
+ * its center and its radius twice. The <code>null</code> reference, which
+ * {@linkplain hr.fer.zemris.java.graphics.Demo Demo} uses as the flip mode
+ * marker, is stored as a record of its own type.
+ * <p>
+ * Shapes are not stored as objects, so {@linkplain #get(int)} creates a new
+ * shape from its record. The {@linkplain #getType(int)} and
+ * {@linkplain #getParameter(int, int)} methods read a record without creating
+ * any object. For the same reason, {@linkplain #indexOf(Object)},
+ * {@linkplain #contains(Object)} and {@linkplain #remove(Object)} compare
+ * shapes by their records: two shapes are equal if they are of the same class
+ * and have equal parameters.
+ * <p>
+ * Only shapes of the exact classes <tt>Rectangle</tt>, <tt>Square</tt>,
+ * <tt>Ellipse</tt> and <tt>Circle</tt> can be stored, as their subclasses
+ * could not be recreated from a record. The capacity is specified by the
+ * caller or 16 records by default, and it expands to twice the current
+ * capacity when the buffer gets filled, up to about one hundred million
+ * records.
+ *
+ * @author Mario Bobic
+ */
+public class OffHeapShapeCollection extends Collection {
+
+    /** Type of the <code>null</code> flip mode marker. */
+    public static final int FLIP = 0;
+    /** Type of a {@linkplain Rectangle}. */
+    public static final int RECTANGLE = 1;
+    /** Type of a {@linkplain Square}. */
+    public static final int SQUARE = 2;
+    /** Type of an {@linkplain Ellipse}. */
+    public static final int ELLIPSE = 3;
+    /** Type of a {@linkplain Circle}. */
+    public static final int CIRCLE = 4;
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Number of parameters of a record. */
+    private static final int PARAMETERS = 4;
+    /** Size of a record in bytes. */
+    private static final int RECORD_SIZE = (1 + PARAMETERS) * Integer.BYTES;
+    /** The largest number of records a buffer can hold. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE;
+    /** Number of bytes copied at once when records are moved. */
+    private static final int MOVE_CHUNK = 1024 * RECORD_SIZE;
+
+    /** The size of this collection (the number of records it contains). */
+    private int size;
+    /** The buffer into which the records are stored. */
+    private ByteBuffer records;
+    /** Scratch array through which records are moved, allocated on first use. */
+    private byte[] scratch;
+
+    /**
+     * Constructs an instance of OffHeapShapeCollection with the default
+     * capacity of 16 records.
+     */
+    public OffHeapShapeCollection() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance of OffHeapShapeCollection with the capacity set
+     * to <code>initialCapacity</code> records.
+     *
+     * @param initialCapacity initial capacity of this collection
+     * @throws IllegalArgumentException if the specified initial capacity is
+     *         less than 1 or greater than the maximum number of records
+     */
+    public OffHeapShapeCollection(int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid initial capacity: " + initialCapacity);
+        }
+        records = allocate(initialCapacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given shape into this collection by appending its record. The
+     * average complexity of this method is O(1).
+     *
+     * @param value shape to be added to this collection, or <code>null</code>
+     * @throws IllegalArgumentException if the value is not a shape of a
+     *         supported class
+     */
+    @Override
+    public void add(Object value) {
+        int type = typeOf(value);
+        ensureCapacity();
+        writeRecord(size, type, value);
+        size++;
+    }
+
+    /**
+     * Inserts the given shape at the given position in this collection,
+     * shifting the records at that position and after it to the right with a
+     * single block copy.
+     * <p>
+     * The legal positions are <code>0</code> to <code>size</code>. If the index
+     * is outside of those boundaries, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param value shape to be inserted to this collection, or <code>null</code>
+     * @param position index at which the specified shape is to be inserted
+     * @throws IndexOutOfBoundsException if the position index is out of range
+     * @throws IllegalArgumentException if the value is not a shape of a
+     *         supported class
+     */
+    public void insert(Object value, int position) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Invalid position: " + position);
+        }
+        int type = typeOf(value);
+
+        ensureCapacity();
+        moveRecords(position, position+1, size-position);
+        writeRecord(position, type, value);
+        size++;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns a new shape created from the record at position
+     * <code>index</code>, or <code>null</code> if the record is a flip mode
+     * marker.
+     * <p>
+     * Valid indexes are in range 0 to size-1. If the given index is invalid,
+     * this method throws an {@linkplain IndexOutOfBoundsException}.
+     *
+     * @param index index of the shape to return
+     * @return a new shape created from the record at the specified position
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public Object get(int index) {
+        checkIndex(index);
+        return readRecord(index);
+    }
+
+    /**
+     * Returns the type of the record at position <code>index</code>, which is
+     * one of the constants {@link #FLIP}, {@link #RECTANGLE}, {@link #SQUARE},
+     * {@link #ELLIPSE} and {@link #CIRCLE}. No object is created.
+     *
+     * @param index index of the record
+     * @return the type of the record
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public int getType(int index) {
+        checkIndex(index);
+        return records.getInt(index * RECORD_SIZE);
+    }
+
+    /**
+     * Returns a parameter of the record at position <code>index</code>. The
+     * parameters are numbered from 0 to 3, as described in the documentation
+     * of this class. No object is created.
+     *
+     * @param index index of the record
+     * @param parameter number of the parameter, from 0 to 3
+     * @return the value of the parameter
+     * @throws IndexOutOfBoundsException if the given index is not in range
+     *         0 to size-1 or the parameter is not in range 0 to 3
+     */
+    public int getParameter(int index, int parameter) {
+        checkIndex(index);
+        if (parameter < 0 || parameter >= PARAMETERS) {
+            throw new IndexOutOfBoundsException("Invalid parameter: " + parameter);
+        }
+        return records.getInt(index * RECORD_SIZE + (1 + parameter) * Integer.BYTES);
+    }
+
+    /**
+     * Searches the collection and returns the index of the first record equal
+     * to the record of the given shape, or -1 if there is none.
+     *
+     * @param value shape to search for, or <code>null</code>
+     * @return the index of the first occurrence of the specified shape in this
+     *         collection, or -1 if this it does not contain the shape
+     */
+    public int indexOf(Object value) {
+        int type;
+        try {
+            type = typeOf(value);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        int[] parameters = parametersOf(type, value);
+
+        for (int i = 0; i < size; i++) {
+            int base = i * RECORD_SIZE;
+            if (records.getInt(base) != type) {
+                continue;
+            }
+            int p = 0;
+            while (p < PARAMETERS && records.getInt(base + (1+p) * Integer.BYTES) == parameters[p]) {
+                p++;
+            }
+            if (p == PARAMETERS) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        int index = indexOf(value);
+
+        if (index != -1) {
+            remove(index);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the record at the specified position in this collection,
+     * shifting any subsequent records to the left with a single block copy.
+     *
+     * @param index the index of the record to be removed
+     * @throws IndexOutOfBoundsException
+     *             if the given index is not in range 0 to size-1
+     */
+    public void remove(int index) {
+        checkIndex(index);
+
+        moveRecords(index+1, index, size-index-1);
+        size--;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The native memory of this collection is kept for reuse.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Each shape in the array is newly created from its record.
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = readRecord(i);
+        }
+        return array;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Each processed shape is newly created from its record.
+     * @throws IllegalArgumentException if the given processor is null
+     */
+    @Override
+    public void forEach(Processor processor) {
+        if (processor == null) {
+            throw new IllegalArgumentException("Processor must not be null.");
+        }
+
+        for (int i = 0; i < size; i++) {
+            processor.process(readRecord(i));
+        }
+    }
+
+    /**
+     * Writes the record of the given shape of the given type at the specified
+     * position.
+     *
+     * @param index position of the record
+     * @param type type of the shape
+     * @param value the shape
+     */
+    private void writeRecord(int index, int type, Object value) {
+        int[] parameters = parametersOf(type, value);
+        int base = index * RECORD_SIZE;
+
+        records.putInt(base, type);
+        for (int p = 0; p < PARAMETERS; p++) {
+            records.putInt(base + (1+p) * Integer.BYTES, parameters[p]);
+        }
+    }
+
+    /**
+     * Creates a new shape from the record at the specified position.
+     *
+     * @param index position of the record
+     * @return a new shape, or <code>null</code> for a flip mode marker
+     */
+    private GeometricShape readRecord(int index) {
+        int base = index * RECORD_SIZE;
+        int type = records.getInt(base);
+        int p0 = records.getInt(base + Integer.BYTES);
+        int p1 = records.getInt(base + 2*Integer.BYTES);
+        int p2 = records.getInt(base + 3*Integer.BYTES);
+        int p3 = records.getInt(base + 4*Integer.BYTES);
+
+        switch (type) {
+        case RECTANGLE:
+            return new Rectangle(p0, p1, p2, p3);
+        case SQUARE:
+            return new Square(p0, p1, p2);
+        case ELLIPSE:
+            return new Ellipse(p0, p1, p2, p3);
+        case CIRCLE:
+            return new Circle(p0, p1, p2);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Returns the record type of the given value.
+     *
+     * @param value the shape, or <code>null</code>
+     * @return the record type of the value
+     * @throws IllegalArgumentException if the value is not a shape of a
+     *         supported class
+     */
+    private static int typeOf(Object value) {
+        if (value == null) {
+            return FLIP;
+        }
+
+        Class<?> clazz = value.getClass();
+        if (clazz == Rectangle.class) {
+            return RECTANGLE;
+        } else if (clazz == Square.class) {
+            return SQUARE;
+        } else if (clazz == Ellipse.class) {
+            return ELLIPSE;
+        } else if (clazz == Circle.class) {
+            return CIRCLE;
+        }
+
+        throw new IllegalArgumentException("Unsupported shape: " + clazz.getName());
+    }
+
+    /**
+     * Returns the four record parameters of the given shape of the given type.
+     *
+     * @param type type of the shape
+     * @param value the shape
+     * @return the record parameters of the shape
+     */
+    private static int[] parametersOf(int type, Object value) {
+        switch (type) {
+        case RECTANGLE:
+        case SQUARE:
+            AbstractQuadrangle q = (AbstractQuadrangle) value;
+            return new int[] {q.x, q.y, q.w, q.h};
+        case ELLIPSE:
+        case CIRCLE:
+            AbstractOval o = (AbstractOval) value;
+            return new int[] {o.cx, o.cy, o.rx, o.ry};
+        default:
+            return new int[PARAMETERS];
+        }
+    }
+
+    /**
+     * Moves <code>count</code> records from position <code>from</code> to
+     * position <code>to</code>. The ranges may overlap.
+     * <p>
+     * The records are copied through a small scratch array, one chunk at a
+     * time, so a move never needs heap memory proportional to the number of
+     * records. Each chunk is read completely before it is written. Records
+     * moved to higher positions are copied from the high end and records moved
+     * to lower positions from the low end, so no chunk overwrites records
+     * which have not been copied yet.
+     *
+     * @param from position of the first record to be moved
+     * @param to position where the first record is moved to
+     * @param count number of records to be moved
+     */
+    private void moveRecords(int from, int to, int count) {
+        if (count == 0 || from == to) {
+            return;
+        }
+        if (scratch == null) {
+            scratch = new byte[MOVE_CHUNK];
+        }
+
+        int length = count * RECORD_SIZE;
+        int source = from * RECORD_SIZE;
+        int target = to * RECORD_SIZE;
+        ByteBuffer buffer = records.duplicate();
+        buffer.clear();
+
+        for (int done = 0; done < length; ) {
+            int n = Math.min(MOVE_CHUNK, length - done);
+            int offset = to > from ? length - done - n : done;
+            buffer.position(source + offset);
+            buffer.get(scratch, 0, n);
+            buffer.position(target + offset);
+            buffer.put(scratch, 0, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Doubles the capacity of this collection if the buffer is full. The
+     * records are copied to the new buffer with a single block copy, and the
+     * native memory of the old buffer is released when it is collected.
+     *
+     * @throws IllegalStateException if the maximum capacity is reached
+     */
+    private void ensureCapacity() {
+        int capacity = records.capacity() / RECORD_SIZE;
+        if (size < capacity) {
+            return;
+        }
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Maximum capacity reached: " + MAX_CAPACITY);
+        }
+
+        ByteBuffer newRecords = allocate((int) Math.min(2L * capacity, MAX_CAPACITY));
+        ByteBuffer source = records.duplicate();
+        source.limit(size * RECORD_SIZE).position(0);
+        newRecords.duplicate().put(source);
+        records = newRecords;
+    }
+
+    /**
+     * Allocates a direct buffer in the native byte order for the specified
+     * number of records.
+     *
+     * @param capacity number of records
+     * @return a new direct buffer
+     */
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Checks if the <code>index</code> is in range of <code>[0, size-1]</code>.
+     * If the index is out of range, an {@linkplain IndexOutOfBoundsException}
+     * is thrown.
+     *
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index > size-1) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+    }
+
+}
@@ -0,0 +1,370 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import java.util.Arrays;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+
+/**
+ * The class Polygon is a {@link GeometricShape geometric shape} that
+ * represents a closed polygon specified by the <tt>x</tt> and <tt>y</tt>
+ * coordinates of its vertices. The last vertex is connected to the first one.
+ * The polygon may be concave and its edges may cross each other, in which case
+ * the {@linkplain FillRule fill rule} decides which of the enclosed regions
+ * belong to the polygon.
+ * <p>
+ * A pixel belongs to the polygon if its center, the point
+ * <tt>(x+0.5, y+0.5)</tt>, lies inside the polygon. A center lying exactly on
+ * a left edge is inside, and one lying on a right edge is outside, so two
+ * polygons sharing an edge never cover the same pixel.
+ * <p>
+ * The polygon is drawn by a scanline fill with an active edge table. The
+ * edges are sorted by their top row, each row activates the edges starting in
+ * it and drops the edges ending in it, and the intersections of the active
+ * edges with the row are stepped from the previous row by integer arithmetic
+ * only. The intersections sorted from left to right bound the spans of the
+ * row, so drawing takes time proportional to the area of the polygon rather
+ * than the area of the raster. The spans are computed once and kept, as the
+ * vertices of a polygon can not be changed, unless the polygon is taller than
+ * a span table may be, in which case only the rows of the raster are filled.
+ *
+ * @author Mario Bobic
+ * @see Triangle
+ */
+public class Polygon extends GeometricShape {
+
+    /**
+     * A fill rule decides whether a point belongs to a polygon, based on the
+     * edges of the polygon crossed by a ray from the point to the left.
+     */
+    public enum FillRule {
+        /** A point is inside if the ray crosses an odd number of edges. */
+        EVEN_ODD,
+        /**
+         * A point is inside if the edges going down and the edges going up
+         * crossed by the ray differ in number.
+         */
+        NON_ZERO
+    }
+
+    /** The x coordinates of the vertices. */
+    private final int[] xs;
+    /** The y coordinates of the vertices. */
+    private final int[] ys;
+    /** The fill rule of this polygon. */
+    private final FillRule rule;
+    /** The span table of this polygon, computed on first use. */
+    private SpanTable spans;
+
+    /**
+     * Constructs a new instance of Polygon with the specified vertices, filled
+     * by the {@link FillRule#EVEN_ODD even-odd} rule.
+     *
+     * @param xs the x coordinates of the vertices
+     * @param ys the y coordinates of the vertices
+     * @throws IllegalArgumentException if any of the arrays is null, the
+     *         arrays differ in length or there are less than 3 vertices
+     */
+    public Polygon(int[] xs, int[] ys) {
+        this(xs, ys, FillRule.EVEN_ODD);
+    }
+
+    /**
+     * Constructs a new instance of Polygon with the specified vertices, filled
+     * by the specified rule. The arrays are copied.
+     *
+     * @param xs the x coordinates of the vertices
+     * @param ys the y coordinates of the vertices
+     * @param rule the fill rule of the polygon
+     * @throws IllegalArgumentException if any of the arguments is null, the
+     *         arrays differ in length or there are less than 3 vertices
+     */
+    public Polygon(int[] xs, int[] ys, FillRule rule) {
+        super();
+        if (xs == null || ys == null) {
+            throw new IllegalArgumentException("Vertices must not be null.");
+        }
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException(
+                "Coordinate arrays differ in length: " + xs.length + ", " + ys.length);
+        }
+        if (xs.length < 3) {
+            throw new IllegalArgumentException("Invalid number of vertices: " + xs.length);
+        }
+        if (rule == null) {
+            throw new IllegalArgumentException("Fill rule must not be null.");
+        }
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.rule = rule;
+    }
+
+    /**
+     * Returns the number of vertices of the polygon.
+     *
+     * @return the number of vertices of the polygon
+     */
+    public int getVertexCount() {
+        return xs.length;
+    }
+
+    /**
+     * Returns the x coordinate of the vertex at the specified index.
+     *
+     * @param index index of the vertex
+     * @return the x coordinate of the vertex
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Returns the y coordinate of the vertex at the specified index.
+     *
+     * @param index index of the vertex
+     * @return the y coordinate of the vertex
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the fill rule of the polygon.
+     *
+     * @return the fill rule of the polygon
+     */
+    public FillRule getFillRule() {
+        return rule;
+    }
+
+    /**
+     * Draws a filled image of the polygon by turning on the pixels of its
+     * spans, clipped to the raster.
+     */
+    @Override
+    public void draw(BWRaster r) {
+        SpanTable table = spans();
+        if (table == null) {
+            table = computeSpans(0, r.getHeight());
+        }
+        table.draw(r, 0, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns true if the center of the pixel specified by <tt>x</tt> and
+     * <tt>y</tt> coordinates lies inside the polygon by its fill rule. This
+     * test agrees exactly with the drawn spans.
+     */
+    @Override
+    public boolean containsPoint(int x, int y) {
+        int winding = 0;
+        int n = xs.length;
+
+        for (int i = 0, j = n-1; i < n; j = i++) {
+            int direction = ys[i] > ys[j] ? 1 : -1;
+            int top = direction > 0 ? j : i;
+            int bottom = direction > 0 ? i : j;
+
+            if (ys[top] == ys[bottom] || y < ys[top] || y >= ys[bottom]) {
+                continue;
+            }
+            long denominator = 2L * ((long) ys[bottom] - ys[top]);
+            long numerator = firstNumerator(top, bottom)
+                    + 2L * ((long) y - ys[top]) * ((long) xs[bottom] - xs[top]);
+            if (ceilDiv(numerator, denominator) <= x) {
+                winding += direction;
+            }
+        }
+
+        return inside(winding);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A polygon spanning more rows than {@linkplain SpanTable#MAX_EXTENT} has
+     * no table.
+     */
+    @Override
+    SpanTable spans() {
+        if (spans == null) {
+            int yMin = ys[0];
+            int yMax = ys[0];
+            for (int y : ys) {
+                yMin = Math.min(yMin, y);
+                yMax = Math.max(yMax, y);
+            }
+            if ((long) yMax - yMin > SpanTable.MAX_EXTENT) {
+                return null;
+            }
+            spans = computeSpans(yMin, yMax);
+        }
+        return spans;
+    }
+
+    /**
+     * Returns true if a point with the specified winding number lies inside
+     * the polygon by its fill rule.
+     *
+     * @param winding the winding number of the point
+     * @return true if the point lies inside the polygon
+     */
+    private boolean inside(int winding) {
+        return rule == FillRule.EVEN_ODD ? (winding & 1) != 0 : winding != 0;
+    }
+
+    /**
+     * Computes the span table of this polygon by a scanline fill with an
+     * active edge table.
+     * <p>
+     * The intersection of an edge with the center line of row <tt>y</tt> lies
+     * at <tt>c = x0 + (2(y-y0)+1) dx / 2dy</tt>, where <tt>(x0, y0)</tt> is the
+     * top vertex of the edge. The first pixel right of the intersection is
+     * <tt>ceil(c - 1/2)</tt>, kept for each active edge as a quotient and a
+     * remainder of the denominator <tt>2dy</tt>. Each next row adds
+     * <tt>2dx / 2dy</tt>, so no division is done after an edge is activated.
+     * Only the specified rows are filled, and an edge starting above them is
+     * activated at the first of them.
+     *
+     * @param minY the first row of the table, inclusive
+     * @param maxY the last row of the table, exclusive
+     * @return the span table of this polygon
+     */
+    private SpanTable computeSpans(int minY, int maxY) {
+        int n = xs.length;
+        int yMin = Integer.MAX_VALUE;
+        int yMax = Integer.MIN_VALUE;
+
+        /* The edge table, excluding horizontal edges. */
+        int edgeCount = 0;
+        int[] top = new int[n];
+        int[] bottom = new int[n];
+        int[] direction = new int[n];
+        long[] order = new long[n];
+        for (int i = 0, j = n-1; i < n; j = i++) {
+            yMin = Math.min(yMin, ys[i]);
+            yMax = Math.max(yMax, ys[i]);
+            if (ys[i] == ys[j]) {
+                continue;
+            }
+            direction[edgeCount] = ys[i] > ys[j] ? 1 : -1;
+            top[edgeCount] = direction[edgeCount] > 0 ? j : i;
+            bottom[edgeCount] = direction[edgeCount] > 0 ? i : j;
+            order[edgeCount] = ((long) ys[top[edgeCount]] << 32) | edgeCount;
+            edgeCount++;
+        }
+        order = Arrays.copyOf(order, edgeCount);
+        Arrays.sort(order);
+
+        /* Stepping state of the edges, valid while they are active. */
+        long[] column = new long[edgeCount];
+        long[] remainder = new long[edgeCount];
+        long[] denominator = new long[edgeCount];
+        long[] stepQuotient = new long[edgeCount];
+        long[] stepRemainder = new long[edgeCount];
+
+        int[] active = new int[edgeCount];
+        int activeCount = 0;
+        int next = 0;
+
+        yMin = Math.max(yMin, minY);
+        yMax = Math.min(yMax, maxY);
+        if (yMin >= yMax) {
+            return new SpanTable.Builder(0).build();
+        }
+
+        SpanTable.Builder builder = new SpanTable.Builder(yMin);
+        for (int y = yMin; y < yMax; y++) {
+            /* Drop the edges ending in this row. */
+            int kept = 0;
+            for (int a = 0; a < activeCount; a++) {
+                if (ys[bottom[active[a]]] > y) {
+                    active[kept++] = active[a];
+                }
+            }
+            activeCount = kept;
+
+            /* Activate the edges starting in this row, or above the first one. */
+            while (next < edgeCount && (int) (order[next] >> 32) <= y) {
+                int e = (int) order[next++];
+                if (ys[bottom[e]] <= y) {
+                    continue;
+                }
+                long d = 2L * ((long) ys[bottom[e]] - ys[top[e]]);
+                long step = 2L * ((long) xs[bottom[e]] - xs[top[e]]);
+                long numerator = firstNumerator(top[e], bottom[e])
+                        + ((long) y - ys[top[e]]) * step;
+
+                denominator[e] = d;
+                column[e] = ceilDiv(numerator, d);
+                remainder[e] = column[e] * d - numerator;
+                stepQuotient[e] = Math.floorDiv(step, d);
+                stepRemainder[e] = Math.floorMod(step, d);
+                active[activeCount++] = e;
+            }
+
+            /* The edges stay nearly sorted between rows. */
+            for (int a = 1; a < activeCount; a++) {
+                int e = active[a];
+                int b = a - 1;
+                while (b >= 0 && column[active[b]] > column[e]) {
+                    active[b+1] = active[b];
+                    b--;
+                }
+                active[b+1] = e;
+            }
+
+            int winding = 0;
+            for (int a = 0; a < activeCount - 1; a++) {
+                winding += direction[active[a]];
+                if (inside(winding)) {
+                    builder.addSpan((int) column[active[a]], (int) column[active[a+1]]);
+                }
+            }
+            builder.nextRow();
+
+            /* Step the active edges to the next row. */
+            for (int a = 0; a < activeCount; a++) {
+                int e = active[a];
+                column[e] += stepQuotient[e];
+                remainder[e] -= stepRemainder[e];
+                if (remainder[e] < 0) {
+                    column[e]++;
+                    remainder[e] += denominator[e];
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the numerator of <tt>c - 1/2</tt> over the denominator
+     * <tt>2dy</tt> for the top row of the edge with the specified vertices.
+     *
+     * @param top index of the top vertex of the edge
+     * @param bottom index of the bottom vertex of the edge
+     * @return the numerator for the top row of the edge
+     */
+    private long firstNumerator(int top, int bottom) {
+        long dx = xs[bottom] - (long) xs[top];
+        long dy = ys[bottom] - (long) ys[top];
+        return 2 * dy * xs[top] - dy + dx;
+    }
+
+    /**
+     * Returns the smallest integer not less than <tt>a / b</tt>, for a
+     * positive <tt>b</tt>.
+     *
+     * @param a the dividend
+     * @param b the positive divisor
+     * @return the quotient rounded up
+     */
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+}
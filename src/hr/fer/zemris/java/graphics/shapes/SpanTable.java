@@ -0,0 +1,677 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+import hr.fer.zemris.java.graphics.raster.GrayRaster;
+
+/**
+ * A span table describes the pixels covered by a geometric shape as a list of
+ * horizontal spans per row, relative to an origin point of the shape. Row
+ * <tt>i</tt> of the table lies at <tt>originY + top + i</tt> and holds the
+ * spans with indexes from <tt>rows[i]</tt> inclusive to <tt>rows[i+1]</tt>
+ * exclusive, in increasing order. Span <tt>k</tt> covers the pixels from
+ * <tt>originX + start[k]</tt> inclusive to <tt>originX + end[k]</tt>
+ * exclusive.
+ * <p>
+ * Convex shapes have exactly one span per row, while a concave
+ * {@linkplain Polygon} may have any number of spans in a row, including none.
+ * <p>
+ * A span table does not depend on the position of the shape, so the same table
+ * is shared by all shapes of equal dimensions. Tables of ovals are cached by
+ * their radii, as computing them requires testing the points near the edge of
+ * the oval. Span tables are immutable.
+ *
+ * @author Mario Bobic
+ */
+final class SpanTable {
+
+    /**
+     * The largest number of rows, or columns searched for the edge of a row,
+     * of a shape which is turned into a span table. The table of a larger
+     * shape would be allocated for its whole extent rather than for the part
+     * which is drawn, so such shapes have no table and are drawn by clipped
+     * loops instead.
+     */
+    static final int MAX_EXTENT = 1 << 20;
+
+    /** Maximum number of oval tables kept in the cache. */
+    private static final int CACHE_SIZE = 256;
+
+    /** Cache of oval tables, keyed by both radii. */
+    private static final Map<Long, SpanTable> OVALS = new LruCache<>(CACHE_SIZE);
+
+    /** Offset of the first row from the origin. */
+    final int top;
+    /** Index of the first span of each row, followed by the number of spans. */
+    final int[] rows;
+    /** Start of each span relative to the origin, inclusive. */
+    final int[] start;
+    /** End of each span relative to the origin, exclusive. */
+    final int[] end;
+
+    /**
+     * Constructs a new span table with the specified rows and spans.
+     *
+     * @param top offset of the first row from the origin
+     * @param rows index of the first span of each row, followed by the
+     *        number of spans
+     * @param start start of each span, inclusive
+     * @param end end of each span, exclusive
+     */
+    private SpanTable(int top, int[] rows, int[] start, int[] end) {
+        this.top = top;
+        this.rows = rows;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the number of rows of this table.
+     *
+     * @return the number of rows of this table
+     */
+    int rowCount() {
+        return rows.length - 1;
+    }
+
+    /**
+     * Turns on the pixels of the spans of this table, placed at the specified
+     * origin and clipped to the raster. The spans are placed in long
+     * arithmetic, so a span reaching past the largest int is clipped rather
+     * than wrapped.
+     *
+     * @param r the raster on which the spans are drawn
+     * @param originX the x coordinate of the origin of this table
+     * @param originY the y coordinate of the origin of this table
+     */
+    void draw(BWRaster r, int originX, int originY) {
+        int width = r.getWidth();
+        int height = r.getHeight();
+
+        long firstY = (long) originY + top;
+        int from = (int) clamp(-firstY, 0, rowCount());
+        int to = (int) clamp(height - firstY, 0, rowCount());
+
+        for (int i = from; i < to; i++) {
+            int y = (int) (firstY + i);
+            for (int k = rows[i]; k < rows[i+1]; k++) {
+                int startX = (int) clamp((long) originX + start[k], 0, width);
+                int endX = (int) clamp((long) originX + end[k], 0, width);
+                for (int x = startX; x < endX; x++) {
+                    r.turnOn(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds to the specified set the pixels of the spans of this table, placed
+     * at the specified origin and clipped to the mask, that are turned on in
+     * the mask. The pixel at <tt>(x, y)</tt> is represented by the index
+     * <tt>y*width + x</tt>, so the mask must have at most
+     * {@linkplain Integer#MAX_VALUE} pixels.
+     *
+     * @param mask the raster whose turned on pixels are tested
+     * @param originX the x coordinate of the origin of this table
+     * @param originY the y coordinate of the origin of this table
+     * @param hits the set to which the pixels are added
+     */
+    void hits(BWRaster mask, int originX, int originY, BitSet hits) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+
+        long firstY = (long) originY + top;
+        int from = (int) clamp(-firstY, 0, rowCount());
+        int to = (int) clamp(height - firstY, 0, rowCount());
+
+        for (int i = from; i < to; i++) {
+            int y = (int) (firstY + i);
+            for (int k = rows[i]; k < rows[i+1]; k++) {
+                int startX = (int) clamp((long) originX + start[k], 0, width);
+                int endX = (int) clamp((long) originX + end[k], 0, width);
+                for (int x = startX; x < endX; x++) {
+                    if (mask.isTurnedOn(x, y)) {
+                        hits.set(y*width + x);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds to the specified raster the coverage of its pixels by the spans of
+     * this table, placed at the specified origin. Each pixel of the raster
+     * covers a square of <tt>factor*factor</tt> pixels of the spans, and its
+     * coverage is the part of the square covered by the spans.
+     * <p>
+     * The squares of a row of the raster are counted together from the span
+     * rows falling into it. A span covers whole squares between its first and
+     * last square, which are only marked at their ends, and only its first and
+     * last square are covered partially, so each span takes a constant time
+     * regardless of its length. The counts are then summed from left to right
+     * once per row of the raster.
+     *
+     * @param r the raster to which the coverage is added
+     * @param originX the x coordinate of the origin of this table
+     * @param originY the y coordinate of the origin of this table
+     * @param factor number of pixels of the spans along each side of a pixel
+     *        of the raster
+     */
+    void coverage(GrayRaster r, int originX, int originY, int factor) {
+        int width = r.getWidth();
+        int height = r.getHeight();
+        long limitX = (long) width * factor;
+        long limitY = (long) height * factor;
+
+        /* Partially covered pixels of each column and changes of full ones. */
+        long[] partial = new long[width];
+        int[] full = new int[width + 1];
+        int lo = width;
+        int hi = -1;
+        int block = -1;
+
+        int rowCount = rowCount();
+        for (int i = 0; i < rowCount; i++) {
+            long y = (long) originY + top + i;
+            if (y < 0) {
+                continue;
+            }
+            if (y >= limitY) {
+                break;
+            }
+            if (y / factor != block) {
+                flush(r, block, partial, full, lo, hi, factor);
+                block = (int) (y / factor);
+                lo = width;
+                hi = -1;
+            }
+
+            for (int k = rows[i]; k < rows[i+1]; k++) {
+                long s = Math.max((long) originX + start[k], 0);
+                long e = Math.min((long) originX + end[k], limitX);
+                if (s >= e) {
+                    continue;
+                }
+                int first = (int) (s / factor);
+                int last = (int) ((e - 1) / factor);
+                lo = Math.min(lo, first);
+                hi = Math.max(hi, last);
+                if (first == last) {
+                    partial[first] += e - s;
+                } else {
+                    partial[first] += (long) (first + 1) * factor - s;
+                    partial[last] += e - (long) last * factor;
+                    full[first + 1]++;
+                    full[last]--;
+                }
+            }
+        }
+        flush(r, block, partial, full, lo, hi, factor);
+    }
+
+    /**
+     * Adds the coverage counted by {@linkplain #coverage} to the columns from
+     * <tt>lo</tt> to <tt>hi</tt> of the specified row of the raster, and
+     * resets the counts of those columns.
+     *
+     * @param r the raster to which the coverage is added
+     * @param y the row of the raster, ignored if negative
+     * @param partial partially covered pixels of each column
+     * @param full changes of the number of fully covered rows of pixels
+     * @param lo the first column with counts, inclusive
+     * @param hi the last column with counts, inclusive
+     * @param factor number of pixels along each side of a pixel of the raster
+     */
+    private static void flush(GrayRaster r, int y, long[] partial, int[] full,
+            int lo, int hi, int factor) {
+        if (y < 0) {
+            return;
+        }
+
+        long area = (long) factor * factor;
+        long fullRows = 0;
+        for (int x = lo; x <= hi; x++) {
+            fullRows += full[x];
+            long covered = partial[x] + fullRows * factor;
+            int coverage = (int) ((covered * GrayRaster.MAX_COVERAGE + area/2) / area);
+            if (coverage > 0) {
+                r.addCoverage(x, y, coverage);
+            }
+            partial[x] = 0;
+            full[x] = 0;
+        }
+    }
+
+    /**
+     * Returns the specified value limited to the interval from <tt>min</tt>
+     * to <tt>max</tt>, both inclusive.
+     *
+     * @param value the value to be limited
+     * @param min the lower limit
+     * @param max the upper limit
+     * @return the limited value
+     */
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    /**
+     * Returns the span table of the outline of stroke width <tt>w</tt> of the
+     * shape described by this table, which must have exactly one span in each
+     * row, as convex shapes do.
+     * <p>
+     * A pixel of the shape lies on the outline unless the pixels at distance
+     * <tt>w</tt> to its left, right, top and bottom all belong to the shape.
+     * By convexity, the pixels which are not on the outline form a single
+     * span in each row, bounded by the spans of the row itself and of the rows
+     * <tt>w</tt> above and below it, so each row of the outline is its own
+     * span without that inner span.
+     *
+     * @param w the stroke width
+     * @return the span table of the outline
+     */
+    SpanTable outline(int w) {
+        int rowCount = rowCount();
+        Builder builder = new Builder(top);
+
+        for (int i = 0; i < rowCount; i++) {
+            int s = start[rows[i]];
+            int e = end[rows[i]];
+
+            if (i < w || (long) i + w >= rowCount) {
+                builder.addSpan(s, e);
+            } else {
+                long innerStart = Math.max((long) s + w, Math.max(start[rows[i-w]], start[rows[i+w]]));
+                long innerEnd = Math.min((long) e - w, Math.min(end[rows[i-w]], end[rows[i+w]]));
+                if (innerStart < innerEnd) {
+                    builder.addSpan(s, (int) innerStart);
+                    builder.addSpan((int) innerEnd, e);
+                } else {
+                    builder.addSpan(s, e);
+                }
+            }
+            builder.nextRow();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns true if the pixel at <tt>(x, y)</tt> is covered by this table
+     * placed at the specified origin.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @param originX the x coordinate of the origin of this table
+     * @param originY the y coordinate of the origin of this table
+     * @return true if the pixel is covered by this table
+     */
+    boolean covers(long x, long y, int originX, int originY) {
+        long row = y - originY - top;
+        if (row < 0 || row >= rowCount()) {
+            return false;
+        }
+
+        long dx = x - originX;
+        for (int k = rows[(int) row]; k < rows[(int) row + 1]; k++) {
+            if (dx >= start[k] && dx < end[k]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the span table of the shape described by this table, placed at
+     * the specified origin and transformed by the specified transform, clipped
+     * to a raster of the specified dimensions. The returned table is relative
+     * to the point <tt>(0, 0)</tt>.
+     * <p>
+     * A pixel is covered if its center, mapped back by the inverse transform,
+     * falls into a pixel covered by this table. The bounding box of this table
+     * is transformed to find the rows and columns which may be covered. Along
+     * each of those rows, the inverse mapping of the pixel centers is linear,
+     * so the pixels falling into a span of this table form a single run whose
+     * ends are solved for directly. Each end is then corrected by testing the
+     * pixels around it exactly as {@linkplain
+     * GeometricShape#containsPoint(int, int, Transform)} does, so the table
+     * agrees with that method. The work is proportional to the number of spans
+     * of this table crossed by the rows of the raster, not to the number of
+     * pixels, and does not depend on the parts of the shape outside of the
+     * raster.
+     *
+     * @param originX the x coordinate of the origin of this table
+     * @param originY the y coordinate of the origin of this table
+     * @param t the transform
+     * @param width the width dimension of the raster
+     * @param height the height dimension of the raster
+     * @return the span table of the transformed shape
+     */
+    SpanTable transform(int originX, int originY, Transform t, int width, int height) {
+        int rowCount = rowCount();
+        long minStart = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < rowCount; i++) {
+            if (rows[i] < rows[i+1]) {
+                minStart = Math.min(minStart, start[rows[i]]);
+                maxEnd = Math.max(maxEnd, end[rows[i+1] - 1]);
+            }
+        }
+        if (minStart > maxEnd) {
+            return new Builder(0).build();
+        }
+
+        double[] cornersX = {originX + (double) minStart, originX + (double) maxEnd};
+        double[] cornersY = {originY + (double) top, originY + (double) top + rowCount};
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double upper = Double.POSITIVE_INFINITY;
+        double lower = Double.NEGATIVE_INFINITY;
+        for (double cx : cornersX) {
+            for (double cy : cornersY) {
+                left = Math.min(left, t.transformX(cx, cy));
+                right = Math.max(right, t.transformX(cx, cy));
+                upper = Math.min(upper, t.transformY(cx, cy));
+                lower = Math.max(lower, t.transformY(cx, cy));
+            }
+        }
+
+        long firstX = (long) Math.max(Math.floor(left), 0);
+        long lastX = (long) Math.min(Math.ceil(right), width);
+        long firstY = (long) Math.max(Math.floor(upper), 0);
+        long lastY = (long) Math.min(Math.ceil(lower), height);
+        if (firstX >= lastX || firstY >= lastY) {
+            return new Builder(0).build();
+        }
+
+        Transform inverse = t.inverse();
+        long columns = lastX - firstX;
+        int[] runStart = new int[16];
+        int[] runEnd = new int[16];
+        Builder builder = new Builder((int) firstY);
+        for (long y = firstY; y < lastY; y++) {
+            double cy = y + 0.5;
+            double u = inverse.transformX(firstX + 0.5, cy);
+            double v = inverse.transformY(firstX + 0.5, cy);
+            double lastV = inverse.transformY(lastX - 0.5, cy);
+
+            /* The rows of this table crossed by the row, with a margin. */
+            double firstRow = Math.floor(Math.min(v, lastV)) - 1 - originY - top;
+            double lastRow = Math.floor(Math.max(v, lastV)) + 1 - originY - top;
+            long fromRow = (long) Math.max(firstRow, 0);
+            long toRow = (long) Math.min(lastRow, rowCount - 1);
+
+            int runCount = 0;
+            for (long j = fromRow; j <= toRow; j++) {
+                long row = originY + top + j;
+                for (int k = rows[(int) j]; k < rows[(int) j + 1]; k++) {
+                    long from = Math.max(originX + (long) start[k], Integer.MIN_VALUE);
+                    long to = Math.min(originX + (long) end[k], Integer.MAX_VALUE + 1L);
+
+                    double enter = Math.max(enter(inverse.m00, u, from, to),
+                                            enter(inverse.m10, v, row, row + 1));
+                    double leave = Math.min(leave(inverse.m00, u, from, to),
+                                            leave(inverse.m10, v, row, row + 1));
+                    enter = Math.min(Math.max(enter, 0), columns);
+                    leave = Math.min(Math.max(leave, enter), columns);
+
+                    /* Correct the estimated run by exact tests of its ends. */
+                    long a = Math.max(firstX + (long) enter - 1, firstX);
+                    long b = Math.min(firstX + (long) leave + 1, lastX);
+                    while (a < b && !maps(inverse, a, cy, row, from, to)) {
+                        a++;
+                    }
+                    while (b > a && !maps(inverse, b - 1, cy, row, from, to)) {
+                        b--;
+                    }
+                    if (a == b) {
+                        continue;
+                    }
+                    while (a > firstX && maps(inverse, a - 1, cy, row, from, to)) {
+                        a--;
+                    }
+                    while (b < lastX && maps(inverse, b, cy, row, from, to)) {
+                        b++;
+                    }
+
+                    if (runCount == runStart.length) {
+                        runStart = Arrays.copyOf(runStart, runCount * 2);
+                        runEnd = Arrays.copyOf(runEnd, runCount * 2);
+                    }
+                    runStart[runCount] = (int) a;
+                    runEnd[runCount] = (int) b;
+                    runCount++;
+                }
+            }
+
+            /* The runs are disjoint, so their starts and ends sort alike. */
+            Arrays.sort(runStart, 0, runCount);
+            Arrays.sort(runEnd, 0, runCount);
+            for (int k = 0; k < runCount; k++) {
+                builder.addSpan(runStart[k], runEnd[k]);
+            }
+            builder.nextRow();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns an estimate of the smallest offset <tt>i</tt> for which the
+     * value <tt>base + slope*i</tt> lies in the interval <tt>[lo, hi)</tt>.
+     *
+     * @param slope the slope of the value
+     * @param base the value at offset <tt>0</tt>
+     * @param lo the lower bound of the interval, inclusive
+     * @param hi the upper bound of the interval, exclusive
+     * @return the estimated first offset
+     */
+    private static double enter(double slope, double base, double lo, double hi) {
+        if (slope > 0) {
+            return Math.ceil((lo - base) / slope);
+        } else if (slope < 0) {
+            return Math.ceil((hi - base) / slope);
+        }
+        return lo <= base && base < hi ? 0 : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns an estimate of the offset following the largest offset
+     * <tt>i</tt> for which the value <tt>base + slope*i</tt> lies in the
+     * interval <tt>[lo, hi)</tt>.
+     *
+     * @param slope the slope of the value
+     * @param base the value at offset <tt>0</tt>
+     * @param lo the lower bound of the interval, inclusive
+     * @param hi the upper bound of the interval, exclusive
+     * @return the estimated offset after the last one
+     */
+    private static double leave(double slope, double base, double lo, double hi) {
+        if (slope > 0) {
+            return Math.ceil((hi - base) / slope);
+        } else if (slope < 0) {
+            return Math.ceil((lo - base) / slope);
+        }
+        return lo <= base && base < hi ? Double.POSITIVE_INFINITY : 0;
+    }
+
+    /**
+     * Returns true if the center of the pixel in column <tt>x</tt> of the row
+     * with the center <tt>cy</tt>, mapped by the inverse transform, falls into
+     * the specified row between the specified columns.
+     *
+     * @param inverse the inverse transform
+     * @param x the column of the pixel
+     * @param cy the y coordinate of the center of the pixel
+     * @param row the row into which the pixel should fall
+     * @param from the first column into which the pixel may fall, inclusive
+     * @param to the last column into which the pixel may fall, exclusive
+     * @return true if the pixel falls into the row between the columns
+     */
+    private static boolean maps(Transform inverse, long x, double cy, long row, long from, long to) {
+        double u = Math.floor(inverse.transformX(x + 0.5, cy));
+        double v = Math.floor(inverse.transformY(x + 0.5, cy));
+        return v == row && u >= from && u < to;
+    }
+
+    /**
+     * Returns the span table of a quadrangle of the specified width and
+     * height, relative to its uppermost leftmost corner.
+     *
+     * @param w the width of the quadrangle
+     * @param h the height of the quadrangle
+     * @return the span table of the quadrangle
+     */
+    static SpanTable forQuadrangle(int w, int h) {
+        int[] start = new int[h];
+        int[] end = new int[h];
+        Arrays.fill(end, w);
+        return new SpanTable(0, singleSpanRows(h), start, end);
+    }
+
+    /**
+     * Returns the span table of an oval of the specified radii, relative to
+     * its center. The table is taken from the cache if an oval of the same
+     * radii has been compiled before.
+     *
+     * @param rx the horizontal radius of the oval
+     * @param ry the vertical radius of the oval
+     * @return the span table of the oval
+     */
+    static SpanTable forOval(int rx, int ry) {
+        Long key = ((long) rx << 32) | ry;
+
+        synchronized (OVALS) {
+            SpanTable table = OVALS.get(key);
+            if (table == null) {
+                table = computeOval(rx, ry);
+                OVALS.put(key, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Computes the span table of an oval of the specified radii. The
+     * half-width of the rows does not grow away from the center, so the edge
+     * of each row is searched from the edge of the previous one.
+     *
+     * @param rx the horizontal radius of the oval
+     * @param ry the vertical radius of the oval
+     * @return the span table of the oval
+     */
+    private static SpanTable computeOval(int rx, int ry) {
+        int rowCount = 2*ry + 1;
+        int[] start = new int[rowCount];
+        int[] end = new int[rowCount];
+
+        int dx = rx;
+        for (int dy = 0; dy <= ry; dy++) {
+            while (dx > 0 && !AbstractOval.contains(dx, dy, rx, ry)) {
+                dx--;
+            }
+            start[ry + dy] = start[ry - dy] = -dx;
+            end[ry + dy] = end[ry - dy] = dx + 1;
+        }
+
+        return new SpanTable(-ry, singleSpanRows(rowCount), start, end);
+    }
+
+    /**
+     * Returns the row index array of a table with exactly one span in each of
+     * the specified number of rows.
+     *
+     * @param rowCount the number of rows
+     * @return the row index array
+     */
+    private static int[] singleSpanRows(int rowCount) {
+        int[] rows = new int[rowCount + 1];
+        for (int i = 0; i <= rowCount; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    /**
+     * A builder of span tables, to which spans are added row by row, from the
+     * top row to the bottom one and from left to right within a row.
+     */
+    static class Builder {
+
+        /** Offset of the first row from the origin. */
+        private final int top;
+        /** Number of rows finished so far. */
+        private int rowCount;
+        /** Number of spans added so far. */
+        private int spanCount;
+        /** Index of the first span of each finished row. */
+        private int[] rows = new int[16];
+        /** Start of each span. */
+        private int[] start = new int[16];
+        /** End of each span. */
+        private int[] end = new int[16];
+
+        /**
+         * Constructs a new builder of a table whose first row lies at the
+         * specified offset from the origin.
+         *
+         * @param top offset of the first row from the origin
+         */
+        public Builder(int top) {
+            this.top = top;
+        }
+
+        /**
+         * Adds a span to the current row. A span which touches the previous
+         * span of the row is merged with it, and an empty span is ignored.
+         *
+         * @param from start of the span, inclusive
+         * @param to end of the span, exclusive
+         */
+        public void addSpan(int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            if (spanCount > rows[rowCount] && end[spanCount-1] == from) {
+                end[spanCount-1] = to;
+                return;
+            }
+
+            if (spanCount == start.length) {
+                start = Arrays.copyOf(start, spanCount * 2);
+                end = Arrays.copyOf(end, spanCount * 2);
+            }
+            start[spanCount] = from;
+            end[spanCount] = to;
+            spanCount++;
+        }
+
+        /**
+         * Finishes the current row and starts the next one.
+         */
+        public void nextRow() {
+            if (rowCount + 2 >= rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            rowCount++;
+            rows[rowCount] = spanCount;
+        }
+
+        /**
+         * Returns a new span table of the finished rows.
+         *
+         * @return a new span table
+         */
+        public SpanTable build() {
+            return new SpanTable(top,
+                    Arrays.copyOf(rows, rowCount + 1),
+                    Arrays.copyOf(start, spanCount),
+                    Arrays.copyOf(end, spanCount));
+        }
+
+    }
+
+}
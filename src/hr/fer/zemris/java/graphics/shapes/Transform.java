@@ -0,0 +1,209 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+/**
+ * An immutable affine transform of the plane, which maps a point
+ * <tt>(x, y)</tt> to the point
+ * <tt>(m00*x + m01*y + m02, m10*x + m11*y + m12)</tt>. Transforms are created
+ * by the static factory methods for a translation, a scaling and a rotation,
+ * and combined by the {@linkplain #then(Transform)} method.
+ * <p>
+ * Only invertible transforms can be created, so that the pixels covered by a
+ * transformed shape can be found by mapping them back to the shape. Two
+ * transforms are {@linkplain #equals(Object) equal} if their coefficients are
+ * equal, which makes transforms suitable as keys of the caches of transformed
+ * shapes.
+ *
+ * @author Mario Bobic
+ * @see GeometricShape#draw(hr.fer.zemris.java.graphics.raster.BWRaster, Transform)
+ */
+public final class Transform {
+
+    /** The identity transform. */
+    private static final Transform IDENTITY = new Transform(1, 0, 0, 0, 1, 0);
+
+    /** Coefficient of x in the transformed x coordinate. */
+    final double m00;
+    /** Coefficient of y in the transformed x coordinate. */
+    final double m01;
+    /** Translation of the x coordinate. */
+    final double m02;
+    /** Coefficient of x in the transformed y coordinate. */
+    final double m10;
+    /** Coefficient of y in the transformed y coordinate. */
+    final double m11;
+    /** Translation of the y coordinate. */
+    final double m12;
+
+    /**
+     * Constructs a new transform with the specified coefficients.
+     *
+     * @param m00 coefficient of x in the transformed x coordinate
+     * @param m01 coefficient of y in the transformed x coordinate
+     * @param m02 translation of the x coordinate
+     * @param m10 coefficient of x in the transformed y coordinate
+     * @param m11 coefficient of y in the transformed y coordinate
+     * @param m12 translation of the y coordinate
+     * @throws IllegalArgumentException if the transform is not invertible or
+     *         any of the coefficients is not finite
+     */
+    public Transform(double m00, double m01, double m02, double m10, double m11, double m12) {
+        double determinant = m00*m11 - m01*m10;
+        if (determinant == 0 || Double.isNaN(determinant) || Double.isInfinite(determinant)
+                || Double.isNaN(m02) || Double.isInfinite(m02)
+                || Double.isNaN(m12) || Double.isInfinite(m12)) {
+            throw new IllegalArgumentException("Transform is not invertible.");
+        }
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+    }
+
+    /**
+     * Returns the identity transform, which maps each point to itself.
+     *
+     * @return the identity transform
+     */
+    public static Transform identity() {
+        return IDENTITY;
+    }
+
+    /**
+     * Returns a transform which translates points by the specified distances.
+     *
+     * @param tx distance along the x axis
+     * @param ty distance along the y axis
+     * @return a translation
+     */
+    public static Transform translation(double tx, double ty) {
+        return new Transform(1, 0, tx, 0, 1, ty);
+    }
+
+    /**
+     * Returns a transform which scales points by the specified factors,
+     * relative to the origin.
+     *
+     * @param sx factor along the x axis
+     * @param sy factor along the y axis
+     * @return a scaling
+     * @throws IllegalArgumentException if any of the factors is zero
+     */
+    public static Transform scaling(double sx, double sy) {
+        return new Transform(sx, 0, 0, 0, sy, 0);
+    }
+
+    /**
+     * Returns a transform which rotates points by the specified angle around
+     * the origin. As the y axis of a raster points down, a positive angle
+     * rotates clockwise on the raster.
+     *
+     * @param theta the angle of rotation in radians
+     * @return a rotation
+     */
+    public static Transform rotation(double theta) {
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        return new Transform(cos, -sin, 0, sin, cos, 0);
+    }
+
+    /**
+     * Returns a transform which rotates points by the specified angle around
+     * the specified point.
+     *
+     * @param theta the angle of rotation in radians
+     * @param px the x coordinate of the center of rotation
+     * @param py the y coordinate of the center of rotation
+     * @return a rotation
+     */
+    public static Transform rotation(double theta, double px, double py) {
+        return translation(-px, -py).then(rotation(theta)).then(translation(px, py));
+    }
+
+    /**
+     * Returns a transform which applies this transform first and then the
+     * specified one.
+     *
+     * @param next the transform to be applied after this one
+     * @return the combined transform
+     * @throws IllegalArgumentException if the specified transform is null
+     */
+    public Transform then(Transform next) {
+        if (next == null) {
+            throw new IllegalArgumentException("Transform must not be null.");
+        }
+        return new Transform(
+            next.m00*m00 + next.m01*m10, next.m00*m01 + next.m01*m11, next.m00*m02 + next.m01*m12 + next.m02,
+            next.m10*m00 + next.m11*m10, next.m10*m01 + next.m11*m11, next.m10*m02 + next.m11*m12 + next.m12
+        );
+    }
+
+    /**
+     * Returns the inverse of this transform, which maps each transformed
+     * point back to the original one.
+     *
+     * @return the inverse of this transform
+     */
+    public Transform inverse() {
+        double determinant = m00*m11 - m01*m10;
+        double i00 = m11 / determinant;
+        double i01 = -m01 / determinant;
+        double i10 = -m10 / determinant;
+        double i11 = m00 / determinant;
+        return new Transform(
+            i00, i01, -(i00*m02 + i01*m12),
+            i10, i11, -(i10*m02 + i11*m12)
+        );
+    }
+
+    /**
+     * Returns the x coordinate of the transformed point <tt>(x, y)</tt>.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the transformed x coordinate
+     */
+    public double transformX(double x, double y) {
+        return m00*x + m01*y + m02;
+    }
+
+    /**
+     * Returns the y coordinate of the transformed point <tt>(x, y)</tt>.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the transformed y coordinate
+     */
+    public double transformY(double x, double y) {
+        return m10*x + m11*y + m12;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (double m : new double[] {m00, m01, m02, m10, m11, m12}) {
+            long bits = Double.doubleToLongBits(m);
+            result = 31*result + (int) (bits ^ (bits >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Transform))
+            return false;
+        Transform other = (Transform) obj;
+        return Double.compare(m00, other.m00) == 0 && Double.compare(m01, other.m01) == 0
+            && Double.compare(m02, other.m02) == 0 && Double.compare(m10, other.m10) == 0
+            && Double.compare(m11, other.m11) == 0 && Double.compare(m12, other.m12) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + m00 + ", " + m01 + ", " + m02 + "; " + m10 + ", " + m11 + ", " + m12 + "]";
+    }
+
+}
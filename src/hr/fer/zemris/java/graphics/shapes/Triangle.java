@@ -0,0 +1,29 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+/**
+ * The class Triangle extends {@linkplain Polygon} and is a
+ * {@link GeometricShape geometric shape} that represents a triangle. A
+ * triangle is specified by the <tt>x</tt> and <tt>y</tt> coordinates of its
+ * three vertices. Both fill rules give the same result for a triangle, so it
+ * is always filled by the {@link Polygon.FillRule#EVEN_ODD even-odd} rule.
+ *
+ * @author Mario Bobic
+ */
+public class Triangle extends Polygon {
+
+    /**
+     * Constructs a new instance of Triangle with the specified <tt>x</tt> and
+     * <tt>y</tt> coordinates of its vertices.
+     *
+     * @param x1 the x coordinate of the first vertex
+     * @param y1 the y coordinate of the first vertex
+     * @param x2 the x coordinate of the second vertex
+     * @param y2 the y coordinate of the second vertex
+     * @param x3 the x coordinate of the third vertex
+     * @param y3 the y coordinate of the third vertex
+     */
+    public Triangle(int x1, int y1, int x2, int y2, int x3, int y3) {
+        super(new int[] {x1, x2, x3}, new int[] {y1, y2, y3});
+    }
+
+}
@@ -3,6 +3,10 @@ package hr.fer.zemris.java.cstr;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 @SuppressWarnings("javadoc")
@@ -113,6 +117,61 @@ public class CStringTests {
         assertEquals(-1, cstring.indexOf('Z'));
     }
 
+    @Test
+    public void testIndexOfInSubstring() {
+        CString cstring = CString.fromString("Abra kadabra").substring(5, 12);
+        assertEquals(0, cstring.indexOf('k'));
+        assertEquals(1, cstring.indexOf('a'));
+        assertEquals(-1, cstring.indexOf('A'));
+    }
+
+    @Test
+    public void testIndexOfWithOffsetConstructor() {
+        char[] chars = {'A', 'B', 'C', 'D'};
+        CString cstring = new CString(chars, 1, 2);
+        assertEquals(-1, cstring.indexOf('D'));
+        assertEquals(1, cstring.indexOf('C'));
+    }
+
+    @Test
+    public void testReplaceAllCharMissing() {
+        CString cstring = CString.fromString("Abra kadabra");
+        assertEquals(cstring, cstring.replaceAll('z', 'Z'));
+    }
+
+    @Test
+    public void testReplaceAllCharInSubstring() {
+        CString cstring = CString.fromString("Abra kadabra").substring(5, 12);
+        assertEquals("kZdZbrZ", cstring.replaceAll('a', 'Z').toString());
+    }
+
+    @Test
+    public void testLastIndexOfChar() {
+        CString cstring = CString.fromString("archive.tar.gz");
+        assertEquals(11, cstring.lastIndexOf('.'));
+        assertEquals(-1, cstring.lastIndexOf('x'));
+        assertEquals(7, cstring.substring(0, 11).lastIndexOf('.'));
+    }
+
+    @Test
+    public void testLastIndexOfCString() {
+        CString cstring = CString.fromString("Abra kadabra");
+        CString bra = CString.fromString("bra");
+
+        assertEquals(9, cstring.lastIndexOf(bra));
+        assertEquals(1, cstring.lastIndexOf(bra, 8));
+        assertEquals(-1, cstring.lastIndexOf(bra, 0));
+        assertEquals(-1, cstring.lastIndexOf(CString.fromString("brab")));
+        assertEquals(12, cstring.lastIndexOf(CString.fromString("")));
+    }
+
+    @Test
+    public void testLastIndexOfOverlapping() {
+        CString cstring = CString.fromString("aaabaaab");
+        assertEquals(4, cstring.lastIndexOf(CString.fromString("aaab")));
+        assertEquals(5, cstring.lastIndexOf(CString.fromString("aa"), 6));
+    }
+
     @Test
     public void testStartsWith() {
         String s = "Abra kadabra";
@@ -371,6 +430,116 @@ public class CStringTests {
         assertEquals("abc1abc2abc3abc abc4abc5abc6abc", replaced.toString());
     }
 
+    @Test
+    public void testSplitChar() {
+        CString cstring = CString.fromString("a,b,,c,");
+        CString[] parts = cstring.split(',');
+
+        assertEquals(5, parts.length);
+        assertEquals("a", parts[0].toString());
+        assertEquals("b", parts[1].toString());
+        assertEquals("", parts[2].toString());
+        assertEquals("c", parts[3].toString());
+        assertEquals("", parts[4].toString());
+    }
+
+    @Test
+    public void testSplitSubstring() {
+        CString cstring = CString.fromString("xxa b").substring(2, 5);
+        CString[] parts = cstring.split(' ');
+
+        assertEquals(2, parts.length);
+        assertEquals("a", parts[0].toString());
+        assertEquals("b", parts[1].toString());
+    }
+
+    @Test
+    public void testSplitCString() {
+        CString cstring = CString.fromString("Abra kadabra");
+        CString[] parts = cstring.split(CString.fromString("bra"));
+
+        assertEquals(3, parts.length);
+        assertEquals("A", parts[0].toString());
+        assertEquals(" kada", parts[1].toString());
+        assertEquals("", parts[2].toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSplitEmptyDelimiter() {
+        // must throw
+        CString.fromString("Abra kadabra").split(CString.fromString(""));
+    }
+
+    @Test
+    public void testTokens() {
+        CString cstring = CString.fromString("  CIRCLE  10 10  5 ");
+        Iterator<CString> tokens = cstring.tokens(' ');
+
+        assertEquals("CIRCLE", tokens.next().toString());
+        assertEquals("10", tokens.next().toString());
+        assertEquals("10", tokens.next().toString());
+        assertEquals("5", tokens.next().toString());
+        assertEquals(false, tokens.hasNext());
+    }
+
+    @Test
+    public void testJoin() {
+        CString cstring = CString.fromString("a,b,,c");
+        CString joined = CString.join(CString.fromString(", "), cstring.split(','));
+
+        assertEquals("a, b, , c", joined.toString());
+        assertEquals("", CString.join(CString.fromString(", ")).toString());
+    }
+
+    @Test
+    public void testIndexOfCStringAfterPartialMatch() {
+        CString cstring = CString.fromString("aab");
+        assertEquals(1, cstring.indexOf(CString.fromString("ab")));
+    }
+
+    @Test
+    public void testReplaceAllMap() {
+        Map<CString, CString> replacements = new LinkedHashMap<>();
+        replacements.put(CString.fromString("a"), CString.fromString("1"));
+        replacements.put(CString.fromString("ab"), CString.fromString("XY"));
+        replacements.put(CString.fromString("bc"), CString.fromString("_"));
+
+        CString cstring = CString.fromString("zabcabcbc");
+        assertEquals("zXYcXYc_", cstring.replaceAll(replacements).toString());
+    }
+
+    @Test
+    public void testReplaceAllMapNoMatch() {
+        Map<CString, CString> replacements = new LinkedHashMap<>();
+        replacements.put(CString.fromString("xyz"), CString.fromString("1"));
+
+        CString cstring = CString.fromString("Abra kadabra");
+        assertEquals(cstring, cstring.replaceAll(replacements));
+    }
+
+    @Test
+    public void testMatcherFindAll() {
+        CStringMatcher matcher = new CStringMatcher(
+                CString.fromString("he"), CString.fromString("she"),
+                CString.fromString("his"), CString.fromString("hers"));
+
+        assertEquals(3, matcher.findAll(CString.fromString("ushers")).size());
+        assertEquals(true, matcher.containsAny(CString.fromString("this")));
+        assertEquals(false, matcher.containsAny(CString.fromString("abc")));
+    }
+
+    @Test
+    public void testBuilder() {
+        CStringBuilder builder = new CStringBuilder(2);
+        builder.append(CString.fromString("Shapes: ")).append(7).append(' ').append(-120);
+        CString built = builder.toCString();
+
+        builder.insert(0, CString.fromString(">>")).delete(2, 4).insert(2, 'X');
+
+        assertEquals("Shapes: 7 -120", built.toString());
+        assertEquals(">>Xapes: 7 -120", builder.toString());
+    }
+
 //    @Test
     public void testFrano() {
         String novi = "franoseffranobossfranozmaj";
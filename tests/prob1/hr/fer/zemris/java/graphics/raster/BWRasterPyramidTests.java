@@ -0,0 +1,144 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class BWRasterPyramidTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullRaster() {
+        // must throw
+        new BWRasterPyramid(null);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInvalidLevel() {
+        BWRasterPyramid pyramid = new BWRasterPyramid(new BWRasterMem(10, 10));
+        // must throw
+        pyramid.getCount(pyramid.getLevelCount(), 0, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeRegion() {
+        // must throw
+        new BWRasterPyramid(new BWRasterMem(10, 10)).countTurnedOn(0, 0, -1, 5);
+    }
+
+    @Test
+    public void testLevelSizes() {
+        BWRasterPyramid pyramid = new BWRasterPyramid(new BWRasterMem(100, 37));
+
+        assertEquals(100, pyramid.getLevelWidth(0));
+        assertEquals(37, pyramid.getLevelHeight(0));
+        assertEquals(13, pyramid.getLevelWidth(3));
+        assertEquals(5, pyramid.getLevelHeight(3));
+
+        int top = pyramid.getLevelCount() - 1;
+        assertEquals(1, pyramid.getLevelWidth(top));
+        assertEquals(1, pyramid.getLevelHeight(top));
+    }
+
+    @Test
+    public void testCountsOfExistingPixels() {
+        BWRaster raster = new BWRasterMem(45, 30);
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            raster.turnOn(random.nextInt(45), random.nextInt(30));
+        }
+
+        assertCountsMatch(new BWRasterPyramid(raster), raster);
+    }
+
+    @Test
+    public void testCountsAfterChanges() {
+        BWRaster raster = new BWRasterPacked(70, 50);
+        BWRasterPyramid pyramid = new BWRasterPyramid(raster);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(70);
+            int y = random.nextInt(50);
+            if (random.nextInt(3) == 0) {
+                pyramid.turnOff(x, y);
+            } else {
+                pyramid.turnOn(x, y);
+            }
+        }
+        pyramid.enableFlipMode();
+        for (int i = 0; i < 500; i++) {
+            pyramid.turnOn(random.nextInt(70), random.nextInt(50));
+        }
+        pyramid.disableFlipMode();
+
+        assertCountsMatch(pyramid, raster);
+    }
+
+    @Test
+    public void testRegions() {
+        BWRaster raster = new BWRasterMem(64, 40);
+        BWRasterPyramid pyramid = new BWRasterPyramid(raster);
+        Random random = new Random(3);
+        for (int i = 0; i < 60; i++) {
+            pyramid.turnOn(random.nextInt(64), random.nextInt(40));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(90) - 13;
+            int y = random.nextInt(60) - 10;
+            int w = random.nextInt(40);
+            int h = random.nextInt(40);
+            long expected = countNaive(raster, x, y, w, h);
+
+            assertEquals(expected, pyramid.countTurnedOn(x, y, w, h));
+            assertEquals(expected != 0, pyramid.anyTurnedOn(x, y, w, h));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        BWRaster raster = new BWRasterMem(20, 20);
+        BWRasterPyramid pyramid = new BWRasterPyramid(raster);
+        pyramid.turnOn(3, 4);
+        pyramid.turnOn(17, 19);
+        pyramid.clear();
+
+        assertEquals(0, pyramid.countTurnedOn(0, 0, 20, 20));
+        assertEquals(false, raster.isTurnedOn(3, 4));
+    }
+
+    /**
+     * Checks the count of every block of every level, and the view of every
+     * level, against the pixels of the raster.
+     */
+    private static void assertCountsMatch(BWRasterPyramid pyramid, BWRaster raster) {
+        for (int level = 0; level < pyramid.getLevelCount(); level++) {
+            BWRaster view = pyramid.getLevel(level);
+            int block = 1 << level;
+            for (int y = 0; y < pyramid.getLevelHeight(level); y++) {
+                for (int x = 0; x < pyramid.getLevelWidth(level); x++) {
+                    long expected = countNaive(raster, x*block, y*block, block, block);
+                    assertEquals("level " + level + " (" + x + ", " + y + ")",
+                            expected, pyramid.getCount(level, x, y));
+                    assertEquals(expected != 0, view.isTurnedOn(x, y));
+                }
+            }
+        }
+    }
+
+    private static long countNaive(BWRaster raster, int x, int y, int w, int h) {
+        long count = 0;
+        for (int j = Math.max(y, 0); j < Math.min(y + h, raster.getHeight()); j++) {
+            for (int i = Math.max(x, 0); i < Math.min(x + w, raster.getWidth()); i++) {
+                if (raster.isTurnedOn(i, j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
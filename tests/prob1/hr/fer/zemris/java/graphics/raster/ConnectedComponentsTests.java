@@ -0,0 +1,164 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ConnectedComponentsTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullRaster() {
+        // must throw
+        new ConnectedComponents(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidPixel() {
+        // must throw
+        new ConnectedComponents(new BWRasterMem(10, 10)).getLabel(10, 0);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testInvalidLabel() {
+        BWRaster raster = new BWRasterMem(10, 10);
+        raster.turnOn(1, 1);
+        // must throw
+        new ConnectedComponents(raster).getSize(2);
+    }
+
+    @Test
+    public void testEmptyRaster() {
+        ConnectedComponents components = new ConnectedComponents(new BWRasterPacked(20, 5));
+
+        assertEquals(0, components.getCount());
+        assertEquals(0, components.getLabel(7, 3));
+    }
+
+    @Test
+    public void testDiagonalNotConnected() {
+        BWRaster raster = new BWRasterMem(3, 3);
+        raster.turnOn(0, 0);
+        raster.turnOn(1, 1);
+        raster.turnOn(2, 0);
+        ConnectedComponents components = new ConnectedComponents(raster);
+
+        assertEquals(3, components.getCount());
+        assertEquals(1, components.getLabel(0, 0));
+        assertEquals(2, components.getLabel(2, 0));
+        assertEquals(3, components.getLabel(1, 1));
+    }
+
+    @Test
+    public void testMergedBelow() {
+        // a U shape whose arms meet only in the last row
+        BWRaster raster = new BWRasterMem(5, 4);
+        for (int y = 0; y < 4; y++) {
+            raster.turnOn(0, y);
+            raster.turnOn(4, y);
+        }
+        for (int x = 0; x < 5; x++) {
+            raster.turnOn(x, 3);
+        }
+        ConnectedComponents components = new ConnectedComponents(raster);
+
+        assertEquals(1, components.getCount());
+        assertEquals(1, components.getLabel(4, 0));
+        assertEquals(11, components.getSize(1));
+    }
+
+    @Test
+    public void testRandomRastersMem() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            testRandomLabeling(new BWRasterMem(1 + random.nextInt(40), 1 + random.nextInt(40)), random);
+        }
+    }
+
+    @Test
+    public void testRandomRastersPacked() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            testRandomLabeling(new BWRasterPacked(1 + random.nextInt(150), 1 + random.nextInt(40)), random);
+        }
+    }
+
+    /**
+     * Turns on about half of the pixels of the raster at random and checks
+     * the labels and sizes against a labeling by naive flood fills.
+     */
+    private static void testRandomLabeling(BWRaster raster, Random random) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int density = 30 + random.nextInt(40);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextInt(100) < density) {
+                    raster.turnOn(x, y);
+                }
+            }
+        }
+
+        List<Long> sizes = new ArrayList<>();
+        int[][] labels = labelNaive(raster, sizes);
+        ConnectedComponents components = new ConnectedComponents(raster);
+
+        assertEquals(sizes.size(), components.getCount());
+        for (int label = 1; label <= sizes.size(); label++) {
+            assertEquals(sizes.get(label - 1).longValue(), components.getSize(label));
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals("(" + x + ", " + y + ")", labels[y][x], components.getLabel(x, y));
+            }
+        }
+    }
+
+    /**
+     * Labels the components by flood filling each one from its first pixel,
+     * row by row, one pixel at a time.
+     */
+    private static int[][] labelNaive(BWRaster raster, List<Long> sizes) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int[][] labels = new int[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!raster.isTurnedOn(x, y) || labels[y][x] != 0) {
+                    continue;
+                }
+
+                int label = sizes.size() + 1;
+                long size = 0;
+                Deque<int[]> queue = new ArrayDeque<>();
+                labels[y][x] = label;
+                queue.add(new int[] {x, y});
+                while (!queue.isEmpty()) {
+                    int[] pixel = queue.poll();
+                    size++;
+                    int[][] neighbours = {
+                        {pixel[0] - 1, pixel[1]}, {pixel[0] + 1, pixel[1]},
+                        {pixel[0], pixel[1] - 1}, {pixel[0], pixel[1] + 1}
+                    };
+                    for (int[] n : neighbours) {
+                        if (n[1] >= 0 && n[1] < height && n[0] >= 0 && n[0] < width
+                                && raster.isTurnedOn(n[0], n[1]) && labels[n[1]][n[0]] == 0) {
+                            labels[n[1]][n[0]] = label;
+                            queue.add(n);
+                        }
+                    }
+                }
+                sizes.add(size);
+            }
+        }
+        return labels;
+    }
+
+}
@@ -0,0 +1,124 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.graphics.shapes.Circle;
+
+@SuppressWarnings("javadoc")
+public class FloodFillTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullRaster() {
+        // must throw
+        FloodFill.fill(null, 0, 0);
+    }
+
+    @Test
+    public void testSeedTurnedOn() {
+        BWRaster raster = new BWRasterMem(10, 10);
+        raster.turnOn(4, 4);
+
+        assertEquals(0, FloodFill.fill(raster, 4, 4));
+        assertEquals(false, raster.isTurnedOn(5, 5));
+    }
+
+    @Test
+    public void testFillsOutline() {
+        Circle circle = new Circle(20, 15, 11);
+        BWRaster expected = new BWRasterMem(40, 30);
+        circle.draw(expected);
+
+        BWRaster raster = new BWRasterPacked(40, 30);
+        circle.drawOutline(raster);
+        FloodFill.fill(raster, 20, 15);
+
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                assertEquals(expected.isTurnedOn(x, y), raster.isTurnedOn(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomRastersMem() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            testRandomFill(new BWRasterMem(1 + random.nextInt(40), 1 + random.nextInt(40)), random);
+        }
+    }
+
+    @Test
+    public void testRandomRastersPacked() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            testRandomFill(new BWRasterPacked(1 + random.nextInt(150), 1 + random.nextInt(40)), random);
+        }
+    }
+
+    /**
+     * Turns on about half of the pixels of the raster at random, fills it from
+     * a random seed and checks the result against a naive flood fill.
+     */
+    private static void testRandomFill(BWRaster raster, Random random) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        boolean[][] expected = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextInt(100) < 45) {
+                    raster.turnOn(x, y);
+                    expected[y][x] = true;
+                }
+            }
+        }
+
+        int seedX = random.nextInt(width);
+        int seedY = random.nextInt(height);
+        long filled = fillNaive(expected, seedX, seedY);
+
+        assertEquals(filled, FloodFill.fill(raster, seedX, seedY));
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals("(" + x + ", " + y + ")", expected[y][x], raster.isTurnedOn(x, y));
+            }
+        }
+    }
+
+    /**
+     * Turns on the region of turned off pixels containing the seed, one pixel
+     * at a time, and returns the number of turned on pixels.
+     */
+    private static long fillNaive(boolean[][] pixels, int seedX, int seedY) {
+        if (pixels[seedY][seedX]) {
+            return 0;
+        }
+
+        long filled = 0;
+        Deque<int[]> queue = new ArrayDeque<>();
+        pixels[seedY][seedX] = true;
+        queue.add(new int[] {seedX, seedY});
+        while (!queue.isEmpty()) {
+            int[] pixel = queue.poll();
+            filled++;
+            int[][] neighbours = {
+                {pixel[0] - 1, pixel[1]}, {pixel[0] + 1, pixel[1]},
+                {pixel[0], pixel[1] - 1}, {pixel[0], pixel[1] + 1}
+            };
+            for (int[] n : neighbours) {
+                if (n[1] >= 0 && n[1] < pixels.length && n[0] >= 0 && n[0] < pixels[0].length
+                        && !pixels[n[1]][n[0]]) {
+                    pixels[n[1]][n[0]] = true;
+                    queue.add(n);
+                }
+            }
+        }
+        return filled;
+    }
+
+}
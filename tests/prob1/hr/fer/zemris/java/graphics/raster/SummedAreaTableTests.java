@@ -0,0 +1,127 @@
+package hr.fer.zemris.java.graphics.raster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class SummedAreaTableTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullRaster() {
+        // must throw
+        new SummedAreaTable(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRasterTooLarge() {
+        BWRaster raster = new BWRasterMem(1, 1) {
+            @Override
+            public int getWidth() {
+                return 70_000;
+            }
+
+            @Override
+            public int getHeight() {
+                return 70_000;
+            }
+        };
+        // must throw
+        new SummedAreaTable(raster);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeRectangle() {
+        // must throw
+        new SummedAreaTable(new BWRasterMem(10, 10)).count(0, 0, 5, -1);
+    }
+
+    @Test
+    public void testEmptyRaster() {
+        SummedAreaTable table = new SummedAreaTable(new BWRasterPacked(33, 7));
+
+        assertEquals(0, table.count());
+        assertEquals(0, table.count(-5, -5, 100, 100));
+    }
+
+    @Test
+    public void testRandomRectanglesMem() {
+        testRandomRectangles(new BWRasterMem(50, 35));
+    }
+
+    @Test
+    public void testRandomRectanglesPacked() {
+        testRandomRectangles(new BWRasterPacked(130, 35));
+    }
+
+    @Test
+    public void testPackedRasterChangesSeen() {
+        BWRaster raster = new BWRasterPacked(70, 20);
+        SummedAreaTable table = new SummedAreaTable(raster);
+        raster.turnOn(3, 4);
+        assertEquals(1, table.count());
+
+        raster.turnOn(69, 19);
+        raster.turnOn(64, 0);
+        assertEquals(3, table.count());
+        assertEquals(2, table.count(60, 0, 10, 20));
+
+        raster.turnOff(3, 4);
+        assertEquals(2, table.count());
+    }
+
+    @Test
+    public void testInvalidate() {
+        BWRaster raster = new BWRasterMem(20, 20);
+        SummedAreaTable table = new SummedAreaTable(raster);
+        raster.turnOn(3, 4);
+        assertEquals(1, table.count());
+
+        raster.turnOn(10, 10);
+        table.invalidate();
+        assertEquals(2, table.count());
+        assertEquals(1, table.count(5, 5, 10, 10));
+    }
+
+    /**
+     * Turns on random pixels of the raster and checks random rectangles,
+     * partly outside of the raster, against a count of their pixels.
+     */
+    private static void testRandomRectangles(BWRaster raster) {
+        Random random = new Random(42);
+        for (int i = 0; i < raster.getWidth() * raster.getHeight() / 3; i++) {
+            raster.turnOn(random.nextInt(raster.getWidth()), random.nextInt(raster.getHeight()));
+        }
+
+        SummedAreaTable table = new SummedAreaTable(raster);
+        assertEquals(countNaive(raster, 0, 0, raster.getWidth(), raster.getHeight()), table.count());
+
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(raster.getWidth() + 20) - 10;
+            int y = random.nextInt(raster.getHeight() + 20) - 10;
+            int w = random.nextInt(raster.getWidth());
+            int h = random.nextInt(raster.getHeight());
+
+            assertEquals(countNaive(raster, x, y, w, h), table.count(x, y, w, h));
+        }
+        assertEquals(countNaive(raster, 5, 5, Integer.MAX_VALUE, Integer.MAX_VALUE),
+                table.count(5, 5, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    private static int countNaive(BWRaster raster, int x, int y, int w, int h) {
+        int count = 0;
+        long toY = Math.min((long) y + h, raster.getHeight());
+        long toX = Math.min((long) x + w, raster.getWidth());
+        for (int j = Math.max(y, 0); j < toY; j++) {
+            for (int i = Math.max(x, 0); i < toX; i++) {
+                if (raster.isTurnedOn(i, j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,155 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+import hr.fer.zemris.java.graphics.raster.BWRasterMem;
+
+@SuppressWarnings("javadoc")
+public class LineTests {
+
+    @Test
+    public void testPixels() {
+        Line line = new Line(0, 0, 4, 2);
+        BWRaster r = new BWRasterMem(5, 3);
+        line.draw(r);
+
+        assertEquals(true, r.isTurnedOn(0, 0));
+        assertEquals(true, r.isTurnedOn(1, 1));
+        assertEquals(true, r.isTurnedOn(2, 1));
+        assertEquals(true, r.isTurnedOn(3, 2));
+        assertEquals(true, r.isTurnedOn(4, 2));
+        assertEquals(5, countTurnedOn(r));
+    }
+
+    @Test
+    public void testSinglePoint() {
+        Line line = new Line(3, 2, 3, 2);
+        BWRaster r = new BWRasterMem(5, 5);
+        line.draw(r);
+
+        assertEquals(true, r.isTurnedOn(3, 2));
+        assertEquals(1, countTurnedOn(r));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidStrokeWidth() {
+        // must throw
+        new Line(0, 0, 4, 2).drawOutline(new BWRasterMem(5, 5), 0);
+    }
+
+    @Test
+    public void testRandomLines() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Line line = new Line(
+                    random.nextInt(60) - 15, random.nextInt(60) - 15,
+                    random.nextInt(60) - 15, random.nextInt(60) - 15);
+            BWRaster r = new BWRasterMem(30, 30);
+            line.draw(r);
+
+            for (int y = 0; y < 30; y++) {
+                for (int x = 0; x < 30; x++) {
+                    boolean expected = isLinePixel(line, x, y);
+                    assertEquals(describe(line, x, y), expected, r.isTurnedOn(x, y));
+                    assertEquals(describe(line, x, y), expected, line.containsPoint(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomStrokes() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Line line = new Line(
+                    random.nextInt(40) - 5, random.nextInt(40) - 5,
+                    random.nextInt(40) - 5, random.nextInt(40) - 5);
+            int strokeWidth = 1 + random.nextInt(5);
+            BWRaster r = new BWRasterMem(30, 30);
+            line.drawOutline(r, strokeWidth);
+
+            for (int y = 0; y < 30; y++) {
+                for (int x = 0; x < 30; x++) {
+                    assertEquals(describe(line, x, y),
+                            isStrokePixel(line, strokeWidth, x, y), r.isTurnedOn(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongLineDrawnInRasterRows() {
+        Line line = new Line(-2_000_000_000, -1_500_000_000, 2_000_000_000, 1_500_000_003);
+        BWRaster r = new BWRasterMem(40, 40);
+        line.draw(r);
+
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 40; x++) {
+                assertEquals(line.containsPoint(x, y), r.isTurnedOn(x, y));
+            }
+        }
+    }
+
+    /**
+     * Steps the line one pixel at a time along its major axis and rounds the
+     * minor coordinate to the nearest one, halves away from the first end.
+     */
+    private static boolean isLinePixel(Line line, int x, int y) {
+        long dx = Math.abs((long) line.getX2() - line.getX1());
+        long dy = Math.abs((long) line.getY2() - line.getY1());
+        int sx = line.getX2() >= line.getX1() ? 1 : -1;
+        int sy = line.getY2() >= line.getY1() ? 1 : -1;
+        long major = Math.max(dx, dy);
+
+        for (long i = 0; i <= major; i++) {
+            long minor = major == 0 ? 0 : Math.floorDiv(2*i*Math.min(dx, dy) + major, 2*major);
+            long px = line.getX1() + sx * (dx >= dy ? i : minor);
+            long py = line.getY1() + sy * (dx >= dy ? minor : i);
+            if (px == x && py == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extends each pixel of the line across its major axis to the stroke
+     * width, with the extra pixel of an even width after the line pixel.
+     */
+    private static boolean isStrokePixel(Line line, int strokeWidth, int x, int y) {
+        boolean xMajor = Math.abs((long) line.getX2() - line.getX1())
+                >= Math.abs((long) line.getY2() - line.getY1());
+        int lower = (strokeWidth - 1) / 2;
+        int upper = strokeWidth / 2;
+
+        for (int d = -upper; d <= lower; d++) {
+            if (xMajor ? isLinePixel(line, x, y + d) : isLinePixel(line, x + d, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Line line, int x, int y) {
+        return "(" + line.getX1() + ", " + line.getY1() + ")-(" + line.getX2() + ", "
+                + line.getY2() + ") at (" + x + ", " + y + ")";
+    }
+
+    private static int countTurnedOn(BWRaster r) {
+        int count = 0;
+        for (int y = 0; y < r.getHeight(); y++) {
+            for (int x = 0; x < r.getWidth(); x++) {
+                if (r.isTurnedOn(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
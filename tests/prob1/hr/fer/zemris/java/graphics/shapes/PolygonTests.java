@@ -0,0 +1,198 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+import hr.fer.zemris.java.graphics.raster.BWRasterMem;
+import hr.fer.zemris.java.graphics.shapes.Polygon.FillRule;
+
+@SuppressWarnings("javadoc")
+public class PolygonTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullVertices() {
+        // must throw
+        new Polygon(null, new int[] {0, 1, 2});
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTooFewVertices() {
+        // must throw
+        new Polygon(new int[] {0, 1}, new int[] {0, 1});
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testArraysDifferInLength() {
+        // must throw
+        new Polygon(new int[] {0, 1, 2}, new int[] {0, 1});
+    }
+
+    @Test
+    public void testSquare() {
+        Polygon square = new Polygon(new int[] {2, 6, 6, 2}, new int[] {1, 1, 5, 5});
+        BWRaster r = new BWRasterMem(10, 10);
+        square.draw(r);
+
+        assertEquals(16, countTurnedOn(r));
+        assertEquals(true, r.isTurnedOn(2, 1));
+        assertEquals(true, r.isTurnedOn(5, 4));
+        assertEquals(false, r.isTurnedOn(6, 4));
+        assertEquals(false, r.isTurnedOn(5, 5));
+    }
+
+    @Test
+    public void testSharedEdgeCoveredOnce() {
+        Polygon left = new Polygon(new int[] {0, 7, 3}, new int[] {0, 2, 9});
+        Polygon right = new Polygon(new int[] {7, 9, 3}, new int[] {2, 8, 9});
+
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertEquals(false, left.containsPoint(x, y) && right.containsPoint(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testPentagramEvenOdd() {
+        Polygon star = pentagram(FillRule.EVEN_ODD);
+        assertEquals(false, star.containsPoint(20, 20));
+        assertEquals(true, star.containsPoint(20, 5));
+    }
+
+    @Test
+    public void testPentagramNonZero() {
+        Polygon star = pentagram(FillRule.NON_ZERO);
+        assertEquals(true, star.containsPoint(20, 20));
+        assertEquals(true, star.containsPoint(20, 5));
+    }
+
+    @Test
+    public void testRandomPolygonsEvenOdd() {
+        testRandomPolygons(FillRule.EVEN_ODD);
+    }
+
+    @Test
+    public void testRandomPolygonsNonZero() {
+        testRandomPolygons(FillRule.NON_ZERO);
+    }
+
+    @Test
+    public void testDrawClippedToRaster() {
+        Polygon triangle = new Triangle(-30, -10, 50, 5, 0, 60);
+        BWRaster r = new BWRasterMem(20, 25);
+        triangle.draw(r);
+
+        assertRasterMatches(triangle, FillRule.EVEN_ODD, r);
+    }
+
+    @Test
+    public void testTallPolygonFillsRasterRows() {
+        Polygon tall = new Polygon(
+                new int[] {0, 8, 4},
+                new int[] {-2_000_000_000, 0, 2_000_000_000});
+        BWRaster r = new BWRasterMem(10, 10);
+        tall.draw(r);
+
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertEquals(tall.containsPoint(x, y), r.isTurnedOn(x, y));
+            }
+        }
+    }
+
+    /**
+     * Draws random polygons, many of them self-intersecting, and checks every
+     * pixel against the definition of the fill rule.
+     */
+    private static void testRandomPolygons(FillRule rule) {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int n = 3 + random.nextInt(8);
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int j = 0; j < n; j++) {
+                xs[j] = random.nextInt(40) - 5;
+                ys[j] = random.nextInt(40) - 5;
+            }
+
+            Polygon polygon = new Polygon(xs, ys, rule);
+            BWRaster r = new BWRasterMem(30, 30);
+            polygon.draw(r);
+            assertRasterMatches(polygon, rule, r);
+        }
+    }
+
+    /**
+     * Checks that a pixel of the raster is turned on exactly if its center is
+     * inside the polygon by the fill rule, and that the polygon contains the
+     * same pixels.
+     */
+    private static void assertRasterMatches(Polygon polygon, FillRule rule, BWRaster r) {
+        for (int y = 0; y < r.getHeight(); y++) {
+            for (int x = 0; x < r.getWidth(); x++) {
+                boolean expected = inside(polygon, rule, x, y);
+                assertEquals("(" + x + ", " + y + ")", expected, r.isTurnedOn(x, y));
+                assertEquals("(" + x + ", " + y + ")", expected, polygon.containsPoint(x, y));
+            }
+        }
+    }
+
+    /**
+     * Casts a ray from the center of the pixel to the left and counts the
+     * crossed edges. An edge is crossed if the row of the center lies within
+     * its rows, including the top and excluding the bottom, and it meets the
+     * row at or left of the center. The coordinates are doubled so that the
+     * center lies on integers.
+     */
+    private static boolean inside(Polygon polygon, FillRule rule, int x, int y) {
+        long cx = 2L * x + 1;
+        long cy = 2L * y + 1;
+        int crossings = 0;
+        int winding = 0;
+
+        int n = polygon.getVertexCount();
+        for (int i = 0, j = n-1; i < n; j = i++) {
+            long x0 = 2L * polygon.getX(j);
+            long y0 = 2L * polygon.getY(j);
+            long x1 = 2L * polygon.getX(i);
+            long y1 = 2L * polygon.getY(i);
+            if (y0 == y1 || cy < Math.min(y0, y1) || cy >= Math.max(y0, y1)) {
+                continue;
+            }
+
+            // the edge meets the row at x0 + (cy-y0)*(x1-x0)/(y1-y0) <= cx
+            long lhs = x0 * (y1 - y0) + (cy - y0) * (x1 - x0);
+            long rhs = cx * (y1 - y0);
+            if (y1 > y0 ? lhs <= rhs : lhs >= rhs) {
+                crossings++;
+                winding += y1 > y0 ? 1 : -1;
+            }
+        }
+
+        return rule == FillRule.EVEN_ODD ? crossings % 2 != 0 : winding != 0;
+    }
+
+    private static Polygon pentagram(FillRule rule) {
+        return new Polygon(
+                new int[] {20, 32, 1, 39, 8},
+                new int[] {0, 38, 14, 14, 38},
+                rule);
+    }
+
+    private static int countTurnedOn(BWRaster r) {
+        int count = 0;
+        for (int y = 0; y < r.getHeight(); y++) {
+            for (int x = 0; x < r.getWidth(); x++) {
+                if (r.isTurnedOn(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,160 @@
+package hr.fer.zemris.java.graphics.shapes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.graphics.raster.BWRaster;
+import hr.fer.zemris.java.graphics.raster.BWRasterMem;
+
+@SuppressWarnings("javadoc")
+public class TransformTests {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSingularTransform() {
+        // must throw
+        Transform.scaling(0, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullTransform() {
+        // must throw
+        new Circle(5, 5, 3).draw(new BWRasterMem(10, 10), null);
+    }
+
+    @Test
+    public void testInverse() {
+        Transform t = Transform.rotation(0.7, 3, 4).then(Transform.scaling(2, 0.5));
+        Transform inverse = t.inverse();
+        double x = t.transformX(11, -6);
+        double y = t.transformY(11, -6);
+
+        assertEquals(11, inverse.transformX(x, y), 1e-9);
+        assertEquals(-6, inverse.transformY(x, y), 1e-9);
+    }
+
+    @Test
+    public void testIdentityDrawsShape() {
+        for (GeometricShape shape : shapes()) {
+            BWRaster expected = new BWRasterMem(40, 30);
+            BWRaster actual = new BWRasterMem(40, 30);
+            shape.draw(expected);
+            shape.draw(actual, Transform.identity());
+
+            assertRastersEqual(expected, actual);
+        }
+    }
+
+    @Test
+    public void testTranslationMovesPixels() {
+        for (GeometricShape shape : shapes()) {
+            BWRaster r = new BWRasterMem(40, 30);
+            shape.draw(r, Transform.translation(7, -3));
+
+            for (int y = 0; y < 30; y++) {
+                for (int x = 0; x < 40; x++) {
+                    assertEquals(shape.containsPoint(x - 7, y + 3), r.isTurnedOn(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDrawMatchesContainsPoint() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            Transform t = randomTransform(random);
+            for (GeometricShape shape : shapes()) {
+                BWRaster r = new BWRasterMem(40, 30);
+                shape.draw(r, t);
+                assertRasterMatches(shape, t, r);
+            }
+        }
+    }
+
+    @Test
+    public void testCachedTransformRedrawn() {
+        Random random = new Random(7);
+        Transform first = randomTransform(random);
+        Transform second = randomTransform(random);
+
+        for (GeometricShape shape : shapes()) {
+            BWRaster expected = new BWRasterMem(40, 30);
+            shape.draw(expected, first);
+            shape.draw(new BWRasterMem(40, 30), second);
+
+            BWRaster actual = new BWRasterMem(40, 30);
+            shape.draw(actual, first);
+            assertRastersEqual(expected, actual);
+        }
+    }
+
+    @Test
+    public void testCacheClearedOnRasterSize() {
+        Transform t = Transform.rotation(0.3, 10, 10);
+        for (GeometricShape shape : shapes()) {
+            shape.draw(new BWRasterMem(12, 9), t);
+
+            BWRaster r = new BWRasterMem(40, 30);
+            shape.draw(r, t);
+            assertRasterMatches(shape, t, r);
+        }
+    }
+
+    @Test
+    public void testCacheClearedOnChange() {
+        Transform t = Transform.rotation(-0.4, 15, 12);
+        Rectangle rectangle = new Rectangle(5, 4, 20, 10);
+        rectangle.draw(new BWRasterMem(40, 30), t);
+
+        rectangle.setWidth(8);
+        BWRaster r = new BWRasterMem(40, 30);
+        rectangle.draw(r, t);
+        assertRasterMatches(rectangle, t, r);
+    }
+
+    /**
+     * Returns a new instance of each kind of shape, some of them partially
+     * outside of the raster.
+     */
+    private static GeometricShape[] shapes() {
+        return new GeometricShape[] {
+            new Rectangle(5, 4, 20, 10),
+            new Square(-6, 18, 15),
+            new Circle(20, 15, 9),
+            new Ellipse(32, 8, 12, 5),
+            new Polygon(new int[] {20, 32, 1, 39, 8}, new int[] {0, 28, 10, 10, 28}),
+            new Triangle(-10, -5, 30, 12, 5, 35),
+            new Line(2, 27, 37, 3)
+        };
+    }
+
+    private static Transform randomTransform(Random random) {
+        double angle = random.nextDouble() * 2 * Math.PI;
+        double sx = 0.5 + random.nextDouble() * 1.5;
+        double sy = 0.5 + random.nextDouble() * 1.5;
+        return Transform.scaling(sx, sy)
+                .then(Transform.rotation(angle, 20, 15))
+                .then(Transform.translation(random.nextInt(11) - 5, random.nextInt(11) - 5));
+    }
+
+    private static void assertRasterMatches(GeometricShape shape, Transform t, BWRaster r) {
+        for (int y = 0; y < r.getHeight(); y++) {
+            for (int x = 0; x < r.getWidth(); x++) {
+                assertEquals(shape.getClass().getSimpleName() + " " + t + " at (" + x + ", " + y + ")",
+                        shape.containsPoint(x, y, t), r.isTurnedOn(x, y));
+            }
+        }
+    }
+
+    private static void assertRastersEqual(BWRaster expected, BWRaster actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.isTurnedOn(x, y), actual.isTurnedOn(x, y));
+            }
+        }
+    }
+
+}